@@ -1,16 +1,47 @@
 package rit;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * This class represents the Quadtree data structure used to compress raw
  * grayscale images and uncompress back.  Conceptually, the tree is
- * a collection of rit.QTNode's.  A rit.QTNode either holds a grayscale image
+ * a collection of nodes.  A node either holds a grayscale image
  * value (0-255), or QUAD_SPLIT, meaning the node is split into four
  * sub-nodes that are equally sized sub-regions that divide up the
  * current space.
  * <p>
+ * The nodes are not stored as objects.  The tree is kept in preorder as
+ * one bit per node which is set if the node is split, and one byte per
+ * leaf holding its value, so a node takes about a byte.  Every walk of
+ * the tree reads both arrays from front to back.
+ * <p>
+ * Regions larger than the parallel threshold are compressed and
+ * uncompressed by splitting their four quadrants onto a ForkJoinPool.
+ * Smaller regions are done sequentially.  Either way the tree and the
+ * image are the same.
+ * <p>
+ * Compression is lossless by default.  With a variance threshold above 0 it
+ * is lossy: a region whose pixels have a variance within the threshold
+ * collapses into a leaf of their mean gray value.  The variance of any
+ * region is found in constant time from summed-area tables of the pixels
+ * and of their squares, so no region is rescanned.
+ * <p>
+ * Compressed images are stored in one of two formats.  The text .rit
+ * format has the raw size on the first line, then the node values in
+ * preorder, one per line.  The binary .ritb format has a header of the
+ * magic number "RITB", the version, the dimension and the number of nodes,
+ * then one bit per node in preorder which is set if the node is split, and
+ * finally one byte per leaf in preorder.  Reading detects the format from
+ * the magic number, so both can be uncompressed.
+ * <p>
  * To learn more about quadtrees:
  * https://en.wikipedia.org/wiki/Quadtree
  *
@@ -24,9 +55,50 @@ public class QTree {
     public final static int QUAD_SPLIT = -1;
 
     /**
-     * the root node in the tree
+     * the file extension of the binary format
+     */
+    public final static String BINARY_EXTENSION = ".ritb";
+
+    /**
+     * the first four bytes of a binary file, "RITB" in ASCII
+     */
+    private final static int BINARY_MAGIC = 0x52495442;
+
+    /**
+     * the version of the binary format that is written
+     */
+    private final static int BINARY_VERSION = 1;
+
+    /**
+     * the largest dimension a binary file can have, so the raw size fits in an int
+     */
+    private final static int MAX_BINARY_DIM = 1 << 15;
+
+    /**
+     * the bytes of the binary header: the magic number, version, dimension and node count
+     */
+    private final static int BINARY_HEADER_BYTES = 4 * Integer.BYTES;
+
+    /**
+     * the largest grayscale value, which is the largest value a leaf can hold
+     */
+    private final static int MAX_GRAY = 255;
+
+    /**
+     * the default parallel threshold
+     */
+    public final static int DEFAULT_PARALLEL_THRESHOLD = 64;
+
+    /**
+     * the nodes of the tree in preorder
      */
-    private QTNode root;
+    private Nodes tree;
+
+    /**
+     * the dimension of the largest region which is compressed or
+     * uncompressed sequentially; larger ones are split in parallel
+     */
+    private int parallelThreshold;
 
     /**
      * the square dimension of the tree
@@ -48,15 +120,36 @@ public class QTree {
      */
     private int compressedSize;
 
+    /**
+     * the largest variance of a region which is compressed into one leaf,
+     * or 0 for lossless compression
+     */
+    private double varianceThreshold;
+
+    /**
+     * the summed-area tables of the pixels and of their squares while
+     * compressing lossy, with DIM + 1 rows and columns whose first row and
+     * column are 0, or null otherwise
+     */
+    private long[] sums, squares;
+
+    /**
+     * the peak signal-to-noise ratio of the last compression, in decibels
+     */
+    private double psnr;
+
     /**
      * Create an initially empty tree.
      */
     public QTree() {
-        this.root = null;
+        this.tree = new Nodes();
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
         this.DIM = 0;
         this.image = null;
         this.rawSize = 0;
         this.compressedSize = 0;
+        this.varianceThreshold = 0;
+        this.psnr = Double.POSITIVE_INFINITY;
     }
 
     /**
@@ -95,6 +188,61 @@ public class QTree {
         return this.compressedSize;
     }
 
+    /**
+     * Get the parallel threshold.
+     *
+     * @return the dimension of the largest region which is done sequentially
+     */
+    public int getParallelThreshold() {
+        return this.parallelThreshold;
+    }
+
+    /**
+     * Set the parallel threshold.  Regions with a larger dimension have
+     * their quadrants compressed and uncompressed in parallel, so a
+     * threshold of at least the image dimension makes everything sequential.
+     *
+     * @param parallelThreshold the dimension of the largest region which is
+     *                          done sequentially, at least 1
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    /**
+     * Get the variance threshold.
+     *
+     * @return the largest variance of a region which is compressed into one
+     * leaf, or 0 if compression is lossless
+     */
+    public double getVarianceThreshold() {
+        return this.varianceThreshold;
+    }
+
+    /**
+     * Set the variance threshold, which makes compression lossy if it is
+     * above 0.  A region whose pixels have a variance (the mean squared
+     * distance from their mean) of at most the threshold is compressed
+     * into one leaf of their mean.
+     *
+     * @param varianceThreshold the largest variance of a region which is
+     *                          compressed into one leaf, or 0 for lossless
+     */
+    public void setVarianceThreshold(double varianceThreshold) {
+        this.varianceThreshold = Math.max(0, varianceThreshold);
+    }
+
+    /**
+     * Get the peak signal-to-noise ratio of the last compression, which
+     * compares the compressed image to the raw image.  Higher is closer.
+     *
+     * @return the ratio in decibels, or infinity if the compression was
+     * lossless
+     */
+    public double getPSNR() {
+        return this.psnr;
+    }
+
     /**
      * Write the uncompressed image to the output file.  This routine is meant to be
      * called from a client after it has been uncompressed
@@ -115,28 +263,156 @@ public class QTree {
 
     /**
      * A private helper routine for parsing the compressed image into
-     * a tree of nodes.  When parsing through the values, there are
-     * two cases:
+     * the nodes of the tree.  The values are read in preorder, and there
+     * are two cases:
      * <p>
      * 1. The value is a grayscale color (0-255).  In this case
-     * return a node containing the value.
+     * it is added as a leaf holding the value.
+     * <p>
+     * 2. The value is QUAD_SPLIT.  The node is split into four
+     * sub-regions, whose values come next.
      * <p>
-     * 2. The value is QUAD_SPLIT.  The node must be split into
-     * four sub-regions.  Each sub-region is attained by recursively
-     * calling this routine.  A node containing these four sub-regions
-     * is returned.
+     * Parsing stops once every split node has its four sub-regions.
      *
      * @param values the values in the compressed image
-     * @return a node that encapsulates this portion of the compressed
-     * image
+     * @param from   the index of the root's value
      * @throws QTException if there are not enough values in the
-     *                     compressed image
+     *                     compressed image, or a value isn't a grayscale color
+     */
+    private void parse(int[] values, int from) throws QTException {
+        tree = new Nodes();
+        int open = 1; // Nodes whose values haven't been read yet.
+        for (int i = from; open > 0; i++, open--) {
+            if (i == values.length) throw new QTException("Not enough values in the compressed image");
+            if (values[i] == QUAD_SPLIT) {
+                tree.addSplit();
+                open += 4;
+            } else {
+                if (values[i] < 0 || values[i] > MAX_GRAY)
+                    throw new QTException("The value " + values[i] + " is not a grayscale color");
+                tree.addLeaf(values[i]);
+            }
+        }
+    }
+
+    /**
+     * The nodes of a tree, or of part of a tree, in preorder.  Each node
+     * has a split flag, and each leaf has its value.
+     */
+    private static class Nodes {
+        /** the split flag of each node */
+        private final BitSet splits;
+        /** the value of each leaf, one unsigned byte each */
+        private byte[] leaves;
+        /** the number of nodes and the number of leaves */
+        private int nodeCount, leafCount;
+
+        /**
+         * Create an empty list of nodes.
+         */
+        private Nodes() {
+            this(new BitSet(), new byte[64], 0, 0);
+        }
+
+        /**
+         * Create a list of nodes from their flags and leaves.
+         *
+         * @param splits    the split flag of each node
+         * @param leaves    the value of each leaf
+         * @param nodeCount the number of nodes
+         * @param leafCount the number of leaves
+         */
+        private Nodes(BitSet splits, byte[] leaves, int nodeCount, int leafCount) {
+            this.splits = splits;
+            this.leaves = leaves;
+            this.nodeCount = nodeCount;
+            this.leafCount = leafCount;
+        }
+
+        /**
+         * Add a split node to the end.
+         */
+        private void addSplit() {
+            splits.set(nodeCount++);
+        }
+
+        /**
+         * Add a leaf to the end.
+         *
+         * @param val the grayscale value of the leaf
+         */
+        private void addLeaf(int val) {
+            if (leafCount == leaves.length) leaves = Arrays.copyOf(leaves, leafCount * 2);
+            leaves[leafCount++] = (byte) val;
+            nodeCount++;
+        }
+
+        /**
+         * Add every node of another list to the end.
+         *
+         * @param other the nodes to add
+         */
+        private void append(Nodes other) {
+            for (int node = other.splits.nextSetBit(0); node >= 0; node = other.splits.nextSetBit(node + 1))
+                splits.set(nodeCount + node);
+            if (leafCount + other.leafCount > leaves.length)
+                leaves = Arrays.copyOf(leaves, Math.max(leaves.length * 2, leafCount + other.leafCount));
+            System.arraycopy(other.leaves, 0, leaves, leafCount, other.leafCount);
+            nodeCount += other.nodeCount;
+            leafCount += other.leafCount;
+        }
+
+        /**
+         * Merge a split node into a single leaf if its four sub-regions are
+         * leaves with the same value, which means the entire region has it.
+         *
+         * @param split     the index of the split node, which must be last
+         *                  but for its sub-regions
+         * @param firstLeaf the index of the first leaf after the split node
+         */
+        private void mergeUniform(int split, int firstLeaf) {
+            if (nodeCount == split + 5 && leafCount == firstLeaf + 4 && leaves[firstLeaf] == leaves[firstLeaf + 1] &&
+                    leaves[firstLeaf] == leaves[firstLeaf + 2] && leaves[firstLeaf] == leaves[firstLeaf + 3]) {
+                splits.clear(split);
+                nodeCount = split + 1;
+                leafCount = firstLeaf + 1;
+            }
+        }
+    }
+
+    /**
+     * The position of a walk through the preorder nodes: the index of the
+     * next node, and of the next leaf.
      */
-    private QTNode parse(List<Integer> values) throws QTException {
-        if (values.size() == 0) throw new QTException("Not enough values in the compressed image");
-        int val = values.remove(0);
-        if (val != QUAD_SPLIT) return new QTNode(val);
-        return new QTNode(val, parse(values), parse(values), parse(values), parse(values));
+    private static class Cursor {
+        /** the index of the next node */
+        private int node;
+        /** the index of the next leaf */
+        private int leaf;
+
+        /**
+         * Create a cursor at a node.
+         *
+         * @param node the index of the node
+         * @param leaf the index of the first leaf at or after the node
+         */
+        private Cursor(int node, int leaf) {
+            this.node = node;
+            this.leaf = leaf;
+        }
+    }
+
+    /**
+     * Move a cursor past a node and its sub-regions without uncompressing
+     * them.
+     *
+     * @param at the position of the node, which is moved past it
+     */
+    private void skip(Cursor at) {
+        for (int open = 1; open > 0; open--) {
+            if (tree.splits.get(at.node++)) open += 4;
+            else at.leaf++;
+        }
     }
 
     /**
@@ -161,20 +437,69 @@ public class QTree {
      * it to the starting row and column in the appropriate places
      * (there is a 1).
      *
-     * @param node  the node to uncompress
-     * @param dim  the dimension of the square region this node represents
-     * @param start the starting coordinate this row represents in the image
-     */
-    private void uncompress(QTNode node, int dim, Coordinate start) {
-        if (node.getVal() != QUAD_SPLIT) {
-            for (int r = start.getRow(); r < dim + start.getRow(); r++)
-                for (int c = start.getCol(); c < dim + start.getCol(); c++)
-                    image[r][c] = node.getVal();
+     * @param at  the position of the node to uncompress, which is moved
+     *            past the node and its sub-regions
+     * @param dim the dimension of the square region this node represents
+     * @param row the starting row this node represents in the image
+     * @param col the starting column this node represents in the image
+     */
+    private void uncompress(Cursor at, int dim, int row, int col) {
+        if (!tree.splits.get(at.node++)) {
+            int val = Byte.toUnsignedInt(tree.leaves[at.leaf++]);
+            for (int r = row; r < dim + row; r++)
+                Arrays.fill(image[r], col, col + dim, val);
         }else{
-            uncompress(node.getUpperLeft(), dim /= 2, start);
-            uncompress(node.getUpperRight(), dim, new Coordinate(start.getRow(), start.getCol() + dim));
-            uncompress(node.getLowerLeft(), dim, new Coordinate(start.getRow() + dim, start.getCol()));
-            uncompress(node.getLowerRight(), dim, new Coordinate(start.getRow() + dim, start.getCol() + dim));
+            uncompress(at, dim /= 2, row, col);
+            uncompress(at, dim, row, col + dim);
+            uncompress(at, dim, row + dim, col);
+            uncompress(at, dim, row + dim, col + dim);
+        }
+    }
+
+    /**
+     * Uncompresses a region like the sequential routine.  If the region is
+     * split and larger than the parallel threshold, its four sub-regions are
+     * found in the preorder nodes and uncompressed in parallel, since they
+     * write disjoint parts of the image.
+     */
+    private class UncompressTask extends RecursiveAction {
+        /** tasks are never serialized, but ForkJoinTask is Serializable */
+        private static final long serialVersionUID = 1L;
+        /** the position of the node to uncompress */
+        private final Cursor at;
+        /** the dimension, starting row and starting column of the region */
+        private final int dim, row, col;
+
+        /**
+         * Create a task to uncompress a region.
+         *
+         * @param at  the position of the node to uncompress
+         * @param dim the dimension of the square region this node represents
+         * @param row the starting row this node represents in the image
+         * @param col the starting column this node represents in the image
+         */
+        private UncompressTask(Cursor at, int dim, int row, int col) {
+            this.at = at;
+            this.dim = dim;
+            this.row = row;
+            this.col = col;
+        }
+
+        @Override
+        protected void compute() {
+            if (dim <= parallelThreshold || !tree.splits.get(at.node)) {
+                uncompress(at, dim, row, col);
+                return;
+            }
+            int half = dim / 2;
+            Cursor next = new Cursor(at.node + 1, at.leaf);
+            UncompressTask ul = new UncompressTask(new Cursor(next.node, next.leaf), half, row, col);
+            skip(next);
+            UncompressTask ur = new UncompressTask(new Cursor(next.node, next.leaf), half, row, col + half);
+            skip(next);
+            UncompressTask ll = new UncompressTask(new Cursor(next.node, next.leaf), half, row + half, col);
+            skip(next);
+            invokeAll(ul, ur, ll, new UncompressTask(next, half, row + half, col + half));
         }
     }
 
@@ -186,6 +511,9 @@ public class QTree {
      * the file is its size (number of values).  The remaining lines are
      * the values in the compressed image, one per line, of "size" lines.
      * <p>
+     * If the file starts with the binary magic number it is read as the
+     * binary format instead.
+     * <p>
      * Once this routine completes, the raw image of grayscale values (0-255)
      * is stored internally and can be retrieved by the client using getImage().
      *
@@ -194,39 +522,115 @@ public class QTree {
      * @throws QTException if there are issues parsing the data in the file
      */
     public void uncompress(String filename) throws IOException, QTException {
-        ArrayList<Integer> nodeValues = new ArrayList<>();
-        Scanner in = new Scanner(new File(filename));
-        rawSize = Integer.parseInt(in.next());
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+            while (magic.hasRemaining() && channel.read(magic) != -1) ;
+            if (!magic.hasRemaining() && magic.getInt(0) == BINARY_MAGIC) {
+                uncompressBinary(channel);
+                return;
+            }
+        }
+        int[] values = readValues(filename);
+        if (values.length == 0) throw new QTException("The compressed image has no size");
+        rawSize = values[0];
         DIM = (int) Math.sqrt(rawSize);
         image = new int[DIM][DIM];
-        while (in.hasNext()) nodeValues.add(in.nextInt());
+        parse(values, 1);
+
+        ForkJoinPool.commonPool().invoke(new UncompressTask(new Cursor(0, 0), DIM, 0, 0));
+    }
+
+    /**
+     * Uncompress the rest of a binary file, after its magic number.
+     *
+     * @param channel the channel of the file, positioned after the magic number
+     * @throws IOException if there are issues reading the file
+     * @throws QTException if the file is a different version, its dimension
+     *                     isn't a power of two small enough for the raw size
+     *                     to fit in an int, or its nodes don't make a tree
+     */
+    private void uncompressBinary(FileChannel channel) throws IOException, QTException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (channel.size() - channel.position()));
+        while (buffer.hasRemaining() && channel.read(buffer) != -1) ;
+        buffer.flip();
+        if (buffer.remaining() < BINARY_HEADER_BYTES - Integer.BYTES)
+            throw new QTException("The binary header is incomplete");
+        int version = buffer.getInt();
+        if (version != BINARY_VERSION) throw new QTException("Unsupported binary version " + version);
+        DIM = buffer.getInt();
+        if (DIM < 1 || DIM > MAX_BINARY_DIM || Integer.bitCount(DIM) != 1)
+            throw new QTException("Invalid image dimension " + DIM);
+        int nodes = buffer.getInt();
+        int flagBytes = (nodes + 7) / 8;
+        if (nodes < 1 || buffer.remaining() < flagBytes)
+            throw new QTException("Not enough values in the compressed image");
+        rawSize = DIM * DIM;
+        image = new int[DIM][DIM];
+
+        byte[] flags = new byte[flagBytes];
+        buffer.get(flags);
+        byte[] leaves = new byte[buffer.remaining()];
+        buffer.get(leaves);
+        tree = new Nodes(BitSet.valueOf(flags), leaves, nodes, leaves.length);
+        checkNodes();
 
-        uncompress(root = parse(nodeValues), DIM, new Coordinate(0,0));
-        in.close();
+        ForkJoinPool.commonPool().invoke(new UncompressTask(new Cursor(0, 0), DIM, 0, 0));
     }
 
     /**
-     * The private writer is a recursive helper routine that writes out the
-     * compressed image.  It goes through the tree in preorder fashion
-     * writing out the values of each node as they are encountered.
+     * Check that the split flags make a whole tree of all the nodes, with
+     * one leaf value for each node that isn't split.
+     *
+     * @throws QTException if there are too few or too many nodes or leaves
+     */
+    private void checkNodes() throws QTException {
+        int open = 1; // Nodes which haven't been reached yet.
+        for (int node = 0; node < tree.nodeCount; node++) {
+            if (open == 0) throw new QTException("Too many values in the compressed image");
+            open += tree.splits.get(node) ? 3 : -1;
+        }
+        int leafNodes = tree.nodeCount - tree.splits.cardinality();
+        if (open != 0 || tree.leafCount < leafNodes) throw new QTException("Not enough values in the compressed image");
+        if (tree.leafCount > leafNodes) throw new QTException("Too many values in the compressed image");
+    }
+
+    /**
+     * The private writer is a helper routine that writes out the
+     * compressed image.  It goes through the nodes in preorder
+     * writing out the value of each node, QUAD_SPLIT for a split node.
      *
-     * @param node   the current node in the tree
      * @param writer the writer to write the node data out to
      * @throws IOException if there are issues with the writer
      */
-    private void writeCompressed(QTNode node, BufferedWriter writer) throws IOException {
-        if (node == null) return;
-        writer.write(node.getVal() + "\n");
-        writeCompressed(node.getUpperLeft(), writer);
-        writeCompressed(node.getUpperRight(), writer);
-        writeCompressed(node.getLowerLeft(), writer);
-        writeCompressed(node.getLowerRight(), writer);
-        compressedSize++; // We have compressed a value so document it.
+    private void writeCompressed(BufferedWriter writer) throws IOException {
+        for (int node = 0, leaf = 0; node < tree.nodeCount; node++)
+            writer.write((tree.splits.get(node) ? QUAD_SPLIT : Byte.toUnsignedInt(tree.leaves[leaf++])) + "\n");
+    }
+
+    /**
+     * Write the compressed image to a file in the binary format.
+     *
+     * @param outFile the name of the file to write the compressed image to
+     * @throws IOException any errors involved with writing the file out
+     */
+    private void writeBinary(String outFile) throws IOException {
+        int flagBytes = (tree.nodeCount + 7) / 8;
+        ByteBuffer buffer = ByteBuffer.allocate(BINARY_HEADER_BYTES + flagBytes + tree.leafCount);
+        buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(DIM).putInt(tree.nodeCount);
+        buffer.put(Arrays.copyOf(tree.splits.toByteArray(), flagBytes));
+        buffer.put(tree.leaves, 0, tree.leafCount);
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(Path.of(outFile), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
     }
 
     /**
      * Write the compressed image to the output file.  This routine is meant to be
-     * called from a client after it has been compressed
+     * called from a client after it has been compressed.  The file is written in
+     * the binary format if its name ends with BINARY_EXTENSION, and in the text
+     * format otherwise.
      *
      * @param outFile the name of the file to write the compressed image to
      * @throws IOException any errors involved with writing the file out
@@ -235,57 +639,211 @@ public class QTree {
      */
     public void writeCompressed(String outFile) throws IOException, QTException {
         if (image == null) throw new QTException("The file has not been uncompressed yet");
+        compressedSize = tree.nodeCount + 1; // Every node, and the raw size.
+        if (outFile.endsWith(BINARY_EXTENSION)) {
+            writeBinary(outFile);
+            return;
+        }
         BufferedWriter bufferedWriter = new BufferedWriter(new PrintWriter(outFile));
-        compressedSize++; // image isn't null, so we have at least one node.
         bufferedWriter.write(rawSize + "\n"); // raw size printed first
-        writeCompressed(root, bufferedWriter);
+        writeCompressed(bufferedWriter);
         bufferedWriter.close();
     }
 
     /**
-     * Check to see whether a region in the raw image contains the same value.
-     * This routine is used by the private compress routine so that it can
-     * construct the nodes in the tree.
+     * This is the core compression routine.  Its job is to work over a region
+     * of the image and compress it.  It builds the tree bottom up, so every
+     * pixel is read exactly once.  It is a recursive routine with two cases:
+     * <p>
+     * 1. We are down to one pixel, or compressing lossy and the region's
+     * variance is within the threshold.  We can now add a leaf that
+     * represents this.
+     * <p>
+     * 2. Otherwise we add a split node and compress the 4 equally sized
+     * sub-regions after it.  If all four of them are leaves with the same
+     * value, the entire region has that value, so the five nodes are
+     * replaced by a single leaf.  The starting point of the sub-regions is
+     * computed from the starting point and size of the full region.
      *
-     * @param start the starting coordinate in the region
-     * @param dim  the dimension of the region
-     * @return whether the region can be compressed or not
+     * @param nodes the nodes to add the region's nodes to
+     * @param row   the starting row of this region
+     * @param col   the starting column of this region
+     * @param dim   the dimension this region represents
      */
-    private boolean canCompressBlock(Coordinate start, int dim) {
-        int startVal = image[start.getRow()][start.getCol()];
-        for (int r = start.getRow(); r < dim + start.getRow(); r++)
-            for (int c = start.getCol(); c < dim + start.getCol(); c++)
-                if (image[r][c] != startVal)
-                    return true; // Loop until we have a different value
-        return false; // All values were the same
+    private void compress(Nodes nodes, int row, int col, int dim) {
+        if (dim <= 1) {
+            nodes.addLeaf(image[row][col]);
+            return;
+        }
+        int mean = lossyMean(row, col, dim);
+        if (mean != QUAD_SPLIT) {
+            nodes.addLeaf(mean);
+            return;
+        }
+        int split = nodes.nodeCount, firstLeaf = nodes.leafCount;
+        nodes.addSplit();
+        dim /= 2;
+        compress(nodes, row, col, dim);
+        compress(nodes, row, col + dim, dim);
+        compress(nodes, row + dim, col, dim);
+        compress(nodes, row + dim, col + dim, dim);
+        nodes.mergeUniform(split, firstLeaf);
     }
 
     /**
-     * This is the core compression routine.  Its job is to work over a region
-     * of the image and compress it.  It is a recursive routine with two cases:
-     * <p>
-     * 1. The entire region represented by this image has the same value, or
-     * we are down to one pixel.  In either case, we can now create a node
-     * that represents this.
-     * <p>
-     * 2. If we can't compress at this level, we need to divide into 4
-     * equally sized sub-regions and call ourselves again.  Just like with
-     * uncompressing, we can compute the starting point of the four sub-regions
-     * by using the starting point and size of the full region.
+     * Compresses a region like the sequential routine.  If the region is
+     * larger than the parallel threshold, its four sub-regions are
+     * compressed in parallel into nodes of their own, which are then
+     * joined after a split node, or merged into one leaf if they are all
+     * the same leaf.
+     */
+    private class CompressTask extends RecursiveTask<Nodes> {
+        /** tasks are never serialized, but ForkJoinTask is Serializable */
+        private static final long serialVersionUID = 1L;
+        /** the starting row, starting column and dimension of the region */
+        private final int row, col, dim;
+
+        /**
+         * Create a task to compress a region.
+         *
+         * @param row the starting row of this region
+         * @param col the starting column of this region
+         * @param dim the dimension this region represents
+         */
+        private CompressTask(int row, int col, int dim) {
+            this.row = row;
+            this.col = col;
+            this.dim = dim;
+        }
+
+        @Override
+        protected Nodes compute() {
+            Nodes nodes = new Nodes();
+            if (dim <= parallelThreshold || lossyMean(row, col, dim) != QUAD_SPLIT) {
+                compress(nodes, row, col, dim);
+                return nodes;
+            }
+            int half = dim / 2;
+            CompressTask ur = new CompressTask(row, col + half, half);
+            CompressTask ll = new CompressTask(row + half, col, half);
+            CompressTask lr = new CompressTask(row + half, col + half, half);
+            ur.fork();
+            ll.fork();
+            lr.fork();
+            Nodes ul = new CompressTask(row, col, half).compute();
+            nodes.addSplit();
+            nodes.append(ul);
+            nodes.append(ur.join());
+            nodes.append(ll.join());
+            nodes.append(lr.join());
+            nodes.mergeUniform(0, 0);
+            return nodes;
+        }
+    }
+
+    /**
+     * Build the summed-area tables of the raw image, where each entry is the
+     * sum of the pixels (or their squares) above and to the left of it.
+     */
+    private void buildSums() {
+        int width = DIM + 1;
+        sums = new long[width * width];
+        squares = new long[width * width];
+        for (int r = 0; r < DIM; r++) {
+            long rowSum = 0, rowSquares = 0;
+            for (int c = 0; c < DIM; c++) {
+                rowSum += image[r][c];
+                rowSquares += (long) image[r][c] * image[r][c];
+                sums[(r + 1) * width + c + 1] = sums[r * width + c + 1] + rowSum;
+                squares[(r + 1) * width + c + 1] = squares[r * width + c + 1] + rowSquares;
+            }
+        }
+    }
+
+    /**
+     * Sum a region of a summed-area table in constant time.
      *
-     * @param start the start coordinate for this region
-     * @param dim  the dimension this region represents
-     * @return a node containing the compression information for the region
+     * @param table the summed-area table
+     * @param row   the starting row of the region
+     * @param col   the starting column of the region
+     * @param dim   the dimension of the region
+     * @return the sum of the region
      */
-    private QTNode compress(Coordinate start, int dim) {
-        if (!canCompressBlock(start, dim)) // Can't compress.
-            return new QTNode(image[start.getRow()][start.getCol()]);
-        return new QTNode(QUAD_SPLIT,
-                compress(start, dim /= 2),
-                compress(new Coordinate(start.getRow(), start.getCol() + dim), dim),
-                compress(new Coordinate(start.getRow() + dim, start.getCol()), dim),
-                compress(new Coordinate(start.getRow() + dim, start.getCol() + dim), dim)
-        );
+    private long regionSum(long[] table, int row, int col, int dim) {
+        int width = DIM + 1;
+        return table[(row + dim) * width + col + dim] - table[row * width + col + dim]
+                - table[(row + dim) * width + col] + table[row * width + col];
+    }
+
+    /**
+     * Find whether a region can be compressed into one leaf lossily.
+     *
+     * @param row the starting row of the region
+     * @param col the starting column of the region
+     * @param dim the dimension of the region
+     * @return the region's mean gray value, rounded, if compressing lossy
+     * and its variance is within the threshold; QUAD_SPLIT otherwise
+     */
+    private int lossyMean(int row, int col, int dim) {
+        if (sums == null) return QUAD_SPLIT;
+        double pixels = (double) dim * dim;
+        double mean = regionSum(sums, row, col, dim) / pixels;
+        double variance = regionSum(squares, row, col, dim) / pixels - mean * mean;
+        return variance <= varianceThreshold ? (int) Math.round(mean) : QUAD_SPLIT;
+    }
+
+    /**
+     * Find the squared error of a part of the tree against the raw image.
+     * The error of a leaf is found in constant time from the summed-area
+     * tables, as the sum over its region of (pixel - value)^2.
+     *
+     * @param at  the position of the node, which is moved past the node and
+     *            its sub-regions
+     * @param dim the dimension of the region of the node
+     * @param row the starting row of the region
+     * @param col the starting column of the region
+     * @return the sum of the squared differences of the region's pixels
+     */
+    private double squaredError(Cursor at, int dim, int row, int col) {
+        if (!tree.splits.get(at.node++)) {
+            double val = Byte.toUnsignedInt(tree.leaves[at.leaf++]);
+            return regionSum(squares, row, col, dim) - 2 * val * regionSum(sums, row, col, dim)
+                    + val * val * dim * dim;
+        }
+        dim /= 2;
+        return squaredError(at, dim, row, col) + squaredError(at, dim, row, col + dim)
+                + squaredError(at, dim, row + dim, col) + squaredError(at, dim, row + dim, col + dim);
+    }
+
+    /**
+     * Read every integer in a file, skipping the whitespace around them.
+     *
+     * @param inputFile the file name
+     * @return the integers in the order they appear
+     * @throws IOException if there are issues working with the file or it
+     *                     holds something other than integers
+     */
+    private static int[] readValues(String inputFile) throws IOException {
+        int[] values = new int[1024];
+        int count = 0;
+        try (BufferedReader in = new BufferedReader(new FileReader(inputFile), 1 << 16)) {
+            int ch = in.read();
+            while (ch != -1) {
+                if (Character.isWhitespace(ch)) {
+                    ch = in.read();
+                    continue;
+                }
+                boolean negative = ch == '-';
+                if (negative) ch = in.read();
+                if (ch < '0' || ch > '9') throw new IOException("Expected an integer in " + inputFile);
+                int val = 0;
+                for (; ch >= '0' && ch <= '9'; ch = in.read()) val = val * 10 + ch - '0';
+                if (ch != -1 && !Character.isWhitespace(ch)) throw new IOException("Expected an integer in " + inputFile);
+                if (count == values.length) values = Arrays.copyOf(values, count * 2);
+                values[count++] = negative ? -val : val;
+            }
+        }
+        return Arrays.copyOf(values, count);
     }
 
     /**
@@ -293,45 +851,44 @@ public class QTree {
      * called by a client.  It is expected to be passed a file which represents
      * the raw image.  It is ASCII formatted and contains a series of grayscale
      * values (0-255).  There is one value per line, and 2^n x 2^n total lines.
+     * <p>
+     * If the variance threshold is above 0 the compression is lossy, and
+     * getPSNR tells how close the compressed image is to the raw image.
      *
      * @param inputFile the raw image file name
-     * @throws IOException if there are issues working with the file
+     * @throws IOException if there are issues working with the file, or a
+     *                     value isn't a grayscale color
      */
     public void compress(String inputFile) throws IOException {
-        ArrayList<Integer> data = new ArrayList<>();
-        Scanner in = new Scanner(new File(inputFile));
-        while (in.hasNext()) data.add(in.nextInt()); // Add the next int to our data list
-        rawSize = data.size();
+        int[] data = readValues(inputFile);
+        rawSize = data.length;
         DIM = (int) Math.sqrt(rawSize);
         image = new int[DIM][DIM];
-        for (int row = 0, i = 0; row < DIM; row++) // Add data to image
-            for (int col = 0; col < DIM; col++)
-                image[row][col] = data.get(i++);
+        for (int val : data)
+            if (val < 0 || val > MAX_GRAY) throw new IOException("The value " + val + " is not a grayscale color");
+        for (int row = 0; row < DIM; row++) // Add data to image
+            System.arraycopy(data, row * DIM, image[row], 0, DIM);
 
-        root = compress(new Coordinate(0, 0), DIM);
+        if (varianceThreshold > 0) buildSums();
+        tree = ForkJoinPool.commonPool().invoke(new CompressTask(0, 0, DIM));
+        psnr = Double.POSITIVE_INFINITY;
+        if (sums != null) {
+            double meanSquaredError = squaredError(new Cursor(0, 0), DIM, 0, 0) / rawSize;
+            if (meanSquaredError > 0) psnr = 10 * Math.log10(MAX_GRAY * MAX_GRAY / meanSquaredError);
+            sums = squares = null; // Only needed while compressing.
+        }
     }
 
     /**
-     * A preorder (parent, left, right) traversal of a node.  It returns
-     * a string which is empty if the node is null.  Otherwise
-     * it returns a string that concatenates the current node's value
-     * with the values of the 4 sub-regions (with spaces between).
-     * This is a recursive process starting with the root and is similar
-     * to how parsing works.
+     * A preorder (parent, left, right) traversal of the tree.  It
+     * appends the value of every node in the order they are stored, with
+     * spaces between, so the whole string is built in one pass.
      *
-     * @param node the node being traversed on
-     * @return the string of the node
-     */
-    private String preorder(QTNode node) {
-        String str = "";
-        if (node != null) {
-            str += node.getVal() + " ";
-            str += preorder(node.getUpperLeft());
-            str += preorder(node.getUpperRight());
-            str += preorder(node.getLowerLeft());
-            str += preorder(node.getLowerRight());
-        }
-        return str;
+     * @param str the builder the string of the tree is appended to
+     */
+    private void preorder(StringBuilder str) {
+        for (int node = 0, leaf = 0; node < tree.nodeCount; node++)
+            str.append(tree.splits.get(node) ? QUAD_SPLIT : Byte.toUnsignedInt(tree.leaves[leaf++])).append(' ');
     }
 
     /**
@@ -341,6 +898,8 @@ public class QTree {
      */
     @Override
     public String toString() {
-        return "QTree: " + preorder(this.root).stripTrailing();
+        StringBuilder str = new StringBuilder("QTree: ");
+        preorder(str);
+        return str.toString().stripTrailing();
     }
 }
\ No newline at end of file
@@ -9,6 +9,16 @@ package rit;
  *
  * $ java RITCompress input-file.txt output-file.rit
  *
+ * The output is written in the binary format instead if its name ends
+ * with .ritb, e.g. output-file.ritb.
+ *
+ * $ java RITCompress input-file.txt output-file.rit variance
+ *
+ * An optional variance above 0 makes the compression lossy: any region
+ * whose pixels vary by at most that much becomes its mean gray value.
+ * The peak signal-to-noise ratio of the result is displayed with the
+ * other statistics, and is Infinity when nothing was lost.
+ *
  * @author RIT CS
  */
 public class RITCompress {
@@ -19,14 +29,15 @@ public class RITCompress {
      * @param args command line arguments
      */
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.out.println("Usage: java RITCompress input-file.raw output-file.rit");
+        if (args.length != 2 && args.length != 3) {
+            System.out.println("Usage: java RITCompress input-file.raw output-file.rit|.ritb [variance]");
             return;
         }
 
         try {
-            // initialize the tree
+            // initialize the tree, lossy if there is a variance
             QTree tree = new QTree();
+            if (args.length == 3) tree.setVarianceThreshold(Double.parseDouble(args[2]));
             // compress the image
             tree.compress(args[0]);
             // display the tree in preorder
@@ -39,6 +50,7 @@ public class RITCompress {
             System.out.println("Compressed image size: " + tree.getCompressedSize());
             System.out.println("Compression %: " +
                     (1.0 - (double) tree.getCompressedSize() / tree.getRawSize()) * 100);
+            System.out.println("PSNR (dB): " + tree.getPSNR());
         } catch (Exception e) {
             System.err.println(e);
         }
@@ -18,8 +18,9 @@ import java.nio.file.Paths;
 import java.util.List;
 
 /**
- * A JavaFX application that uncompresses a .rit file into a .raw file
- * and displays the resulting image.
+ * A JavaFX application that uncompresses a .rit or .ritb file into a .raw
+ * file and displays the resulting image.  The format of the input file is
+ * detected from its contents.
  *
  * Usage: java RITUncompress rit-file raw-file
  *
@@ -65,7 +66,7 @@ public class RITUncompress extends Application {
             }
 
         } else {
-            System.out.println("Usage: java RITUncompress input-file.rit output-file.raw");
+            System.out.println("Usage: java RITUncompress input-file.rit|.ritb output-file.raw");
             Platform.exit();
         }
     }
@@ -0,0 +1,250 @@
+package puzzles.batch;
+
+import puzzles.benchmark.Benchmark;
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.jam.model.JamConfig;
+import puzzles.strings.StringsConfig;
+import puzzles.tilt.model.TiltConfig;
+import puzzles.water.WaterConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Solves many puzzles at once on a pool of threads and prints one row of metrics per puzzle, so solver
+ * performance can be tracked over releases without reading through every step.
+ * The puzzles come from either a directory or a manifest file. Every .txt file under a directory is solved,
+ * as a jam or tilt puzzle depending on whether it is under a directory named jam or tilt, so running it on data
+ * solves everything there. Each line of a manifest is one puzzle, with the same arguments its own main takes:
+ * <pre>
+ * jam filename [cells|cars]
+ * tilt filename
+ * water amount bucket1 bucket2 ...
+ * strings start finish
+ * </pre>
+ * Blank lines and lines starting with # are skipped. Puzzles are solved with Solver.buildShortestPath, so strings
+ * of uppercase letters and unreachable water amounts get the same metrics as their own mains. The rows are printed
+ * in input order as CSV or JSON, with the path length (-1 if there is no solution), the total and unique configs,
+ * the peak frontier, the wall time and the bytes allocated by the thread which solved the puzzle.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class Batch {
+    /** The output formats */
+    private static final String CSV = "csv", JSON = "json";
+
+    /** The move mode argument of jam puzzles which moves whole cars */
+    private static final String CAR_MOVES_ARG = "cars";
+
+    /** The column names of the CSV output, which are also the keys of the JSON output */
+    private static final String[] COLUMNS = {"puzzle", "input", "steps", "total_configs", "unique_configs",
+            "peak_frontier", "wall_ms", "allocated_bytes", "error"};
+
+    /**
+     * A puzzle to solve.
+     * @param type the kind of puzzle: jam, tilt, water or strings
+     * @param args the arguments of the puzzle, like the file name or the amount and buckets
+     */
+    private record Puzzle(String type, List<String> args) {}
+
+    /**
+     * The metrics of solving one puzzle.
+     * @param puzzle the puzzle which was solved
+     * @param steps the number of moves in the solution, or -1 if there is no solution
+     * @param totalConfigs the total configs the solver generated
+     * @param uniqueConfigs the unique configs the solver found
+     * @param peakFrontier the most configs waiting to be expanded at once
+     * @param millis the time it took to load and solve the puzzle, in milliseconds
+     * @param allocatedBytes the bytes allocated while loading and solving the puzzle, or 0 if the JVM can't tell
+     * @param error the reason the puzzle couldn't be solved, or null if it was
+     */
+    private record Result(Puzzle puzzle, int steps, int totalConfigs, int uniqueConfigs, int peakFrontier,
+                         double millis, long allocatedBytes, String error) {}
+
+    /**
+     * Run the batch solver.
+     *
+     * @param args [0]: a directory of puzzle files, or a manifest; [1]: optional number of threads, all cores by
+     *             default; [2]: optional output format, csv or json, csv by default
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int threads = args.length >= 2 ? parseThreads(args[1]) : Runtime.getRuntime().availableProcessors();
+        if (args.length < 1 || args.length > 3 || threads < 1 ||
+                (args.length == 3 && !args[2].equals(CSV) && !args[2].equals(JSON))) {
+            System.out.println("Usage: java Batch directory|manifest [threads] [" + CSV + "|" + JSON + "]");
+            return;
+        }
+        List<Puzzle> puzzles;
+        try {
+            puzzles = readPuzzles(Path.of(args[0]));
+        }catch (IOException | IllegalArgumentException e){
+            System.out.println("Could not read the puzzles in " + args[0] + ": " + e.getMessage());
+            return;
+        }
+        boolean json = args.length == 3 && args[2].equals(JSON);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> results = new ArrayList<>();
+        for (Puzzle puzzle : puzzles)
+            results.add(pool.submit(() -> solve(puzzle)));
+        pool.shutdown();
+
+        if (json) System.out.println("[");
+        else System.out.println(String.join(",", COLUMNS));
+        for (int i = 0; i < results.size(); i++){
+            String[] values = values(results.get(i).get());
+            System.out.println(json ? jsonRow(values) + (i < results.size() - 1 ? "," : "") : csvRow(values));
+        }
+        if (json) System.out.println("]");
+    }
+
+    /**
+     * @param arg the thread count argument
+     * @return the number of threads, or 0 if the argument isn't a number
+     */
+    private static int parseThreads(String arg){
+        try {
+            return Integer.parseInt(arg);
+        }catch (NumberFormatException e){
+            return 0;
+        }
+    }
+
+    /**
+     * Find the puzzles of a directory or manifest.
+     *
+     * @param source a directory of puzzle files, or a manifest
+     * @return the puzzles, with the files of a directory sorted by path
+     * @throws IOException if the source can't be read
+     * @throws IllegalArgumentException if a line of a manifest isn't a puzzle
+     */
+    private static List<Puzzle> readPuzzles(Path source) throws IOException {
+        List<Puzzle> puzzles = new ArrayList<>();
+        if (Files.isDirectory(source)){
+            try (Stream<Path> files = Files.walk(source)){
+                for (Path file : files.filter(file -> file.toString().endsWith(".txt")).sorted().toList()){
+                    String type = file.getParent().getFileName().toString();
+                    if (type.equals("jam") || type.equals("tilt"))
+                        puzzles.add(new Puzzle(type, List.of(file.toString())));
+                }
+            }
+        }else{
+            for (String line : Files.readAllLines(source)){
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                List<String> fields = Arrays.asList(line.split("\\s+"));
+                String type = fields.get(0);
+                List<String> puzzleArgs = fields.subList(1, fields.size());
+                boolean valid = switch (type) {
+                    case "jam" -> puzzleArgs.size() == 1 || puzzleArgs.size() == 2;
+                    case "tilt" -> puzzleArgs.size() == 1;
+                    case "water" -> puzzleArgs.size() >= 2;
+                    case "strings" -> puzzleArgs.size() == 2;
+                    default -> false;
+                };
+                if (!valid) throw new IllegalArgumentException("not a puzzle: " + line);
+                puzzles.add(new Puzzle(type, puzzleArgs));
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Load the starting configuration of a puzzle.
+     *
+     * @param puzzle the puzzle to load
+     * @return the starting configuration
+     * @throws IOException if the puzzle file can't be read
+     */
+    private static Configuration load(Puzzle puzzle) throws IOException {
+        List<String> args = puzzle.args();
+        return switch (puzzle.type()) {
+            case "jam" -> new JamConfig(args.get(0), args.size() == 2 && args.get(1).equals(CAR_MOVES_ARG) ?
+                    JamConfig.MoveMode.CAR_MOVES : JamConfig.MoveMode.CELL_STEPS);
+            case "tilt" -> new TiltConfig(args.get(0));
+            case "water" -> {
+                List<Integer> buckets = new ArrayList<>();
+                for (int i = 1; i < args.size(); i++) buckets.add(Integer.valueOf(args.get(i)));
+                yield new WaterConfig(Integer.parseInt(args.get(0)), buckets);
+            }
+            default -> new StringsConfig(args.get(0), args.get(1));
+        };
+    }
+
+    /**
+     * Load and solve one puzzle, measuring the thread it runs on.
+     *
+     * @param puzzle the puzzle to solve
+     * @return the metrics of solving the puzzle
+     */
+    private static Result solve(Puzzle puzzle){
+        long startBytes = Benchmark.allocatedBytes(), start = System.nanoTime();
+        Solver solver = new Solver();
+        int steps = -1;
+        String error = null;
+        try {
+            List<Configuration> path = solver.buildShortestPath(load(puzzle));
+            if (path != null) steps = path.size() - 1;
+        }catch (IOException e){
+            error = "Could not read " + puzzle.args().get(0);
+        }catch (RuntimeException e){
+            error = e.toString();
+        }
+        return new Result(puzzle, steps, solver.getLastTotalConfigs(), solver.getLastUniqueConfigs(),
+                solver.getLastPeakFrontier(), (System.nanoTime() - start) / 1e6,
+                Benchmark.allocatedBytes() - startBytes, error);
+    }
+
+    /**
+     * @param result the metrics of a puzzle
+     * @return the values of the row of the puzzle, in the order of COLUMNS, with null for no error
+     */
+    private static String[] values(Result result){
+        return new String[]{result.puzzle().type(), String.join(" ", result.puzzle().args()),
+                String.valueOf(result.steps()), String.valueOf(result.totalConfigs()),
+                String.valueOf(result.uniqueConfigs()), String.valueOf(result.peakFrontier()),
+                String.format(Locale.ROOT, "%.3f", result.millis()), String.valueOf(result.allocatedBytes()), result.error()};
+    }
+
+    /**
+     * @param values the values of a row
+     * @return the row as CSV, quoting the text columns
+     */
+    private static String csvRow(String[] values){
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++){
+            if (i > 0) row.append(',');
+            if (values[i] == null) continue;
+            boolean text = i < 2 || i == values.length - 1;
+            row.append(text ? '"' + values[i].replace("\"", "\"\"") + '"' : values[i]);
+        }
+        return row.toString();
+    }
+
+    /**
+     * @param values the values of a row
+     * @return the row as a JSON object on one line
+     */
+    private static String jsonRow(String[] values){
+        StringBuilder row = new StringBuilder("  {");
+        for (int i = 0; i < values.length; i++){
+            if (i > 0) row.append(", ");
+            row.append('"').append(COLUMNS[i]).append("\": ");
+            boolean text = i < 2 || i == values.length - 1;
+            if (values[i] == null) row.append("null");
+            else if (text) row.append('"').append(values[i].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            else row.append(values[i]);
+        }
+        return row.append('}').toString();
+    }
+}
@@ -0,0 +1,176 @@
+package puzzles.benchmark;
+
+import puzzles.common.solver.Configuration;
+import puzzles.common.solver.Solver;
+import puzzles.jam.model.JamConfig;
+import puzzles.strings.StringsConfig;
+import puzzles.tilt.model.TiltConfig;
+import puzzles.water.WaterConfig;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Benchmarks for the puzzle solvers, so every performance change can be judged against a baseline.
+ * Each benchmark is warmed up, then timed over several iterations, and reports the average time per operation
+ * with its standard deviation, and the bytes allocated per operation and the allocation rate of the benchmark thread.
+ * Neighbor generation, hashing and full solves are measured for every puzzle in data/jam and data/tilt, and for
+ * a few water and strings inputs. Solves use Solver.buildShortestPath, like the mains of the puzzles. Run it from the project directory so the data files are found.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class Benchmark {
+    /** The number of iterations run before measuring */
+    private static final int WARMUP_ITERATIONS = 3;
+
+    /** The number of iterations measured */
+    private static final int MEASURED_ITERATIONS = 5;
+
+    /** The least time each iteration runs for, in nanoseconds; slow operations still run once */
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    /** About how many times the clock is read in an iteration, so reading it doesn't swamp fast operations */
+    private static final int CLOCK_READS = 1000;
+
+    /** The water inputs, each the amount followed by the bucket sizes */
+    private static final int[][] WATER_INPUTS = {{4, 3, 5}, {17, 19, 31}, {16, 11, 17, 29, 41}, {42, 70, 39, 1001}};
+
+    /** The strings inputs, each the start and the finish */
+    private static final String[][] STRINGS_INPUTS = {{"AB", "XD"}, {"CAT", "DOG"}, {"ABC", "BZD"}};
+
+    /** The directories of the puzzle files */
+    private static final String JAM_DATA_DIR = "data/jam", TILT_DATA_DIR = "data/tilt";
+
+    /** Results are stored here so the JIT can't throw away the work of a benchmark */
+    private static volatile Object sink;
+
+    /** Hashes are stored here, so they are measured without boxing */
+    private static volatile int hashSink;
+
+    /**
+     * A benchmark, which creates its operation just before it's run.
+     * @param name the name of the benchmark
+     * @param setup creates the operation to measure
+     */
+    private record Case(String name, Callable<Runnable> setup) {}
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args [0]: optional text which the names of the benchmarks to run contain
+     */
+    public static void main(String[] args) throws Exception {
+        String filter = args.length > 0 ? args[0] : "";
+        System.out.printf("%-36s %16s %12s %14s %12s%n", "Benchmark", "ns/op", "stddev", "B/op", "MB/s");
+        for (Case benchmark : cases())
+            if (benchmark.name().contains(filter))
+                run(benchmark);
+    }
+
+    /** @return every benchmark, in the order they are run */
+    private static List<Case> cases(){
+        List<Case> cases = new ArrayList<>();
+        for (File file : dataFiles(JAM_DATA_DIR))
+            addConfigCases(cases, "jam/" + file.getName(), () -> new JamConfig(file.getPath()));
+        for (File file : dataFiles(TILT_DATA_DIR))
+            addConfigCases(cases, "tilt/" + file.getName(), () -> new TiltConfig(file.getPath()));
+        for (int[] input : WATER_INPUTS){
+            List<Integer> buckets = new ArrayList<>();
+            for (int i = 1; i < input.length; i++) buckets.add(input[i]);
+            addConfigCases(cases, "water/" + Arrays.toString(input), () -> new WaterConfig(input[0], buckets));
+        }
+        for (String[] input : STRINGS_INPUTS)
+            addConfigCases(cases, "strings/" + input[0] + "-" + input[1], () -> new StringsConfig(input[0], input[1]));
+        return cases;
+    }
+
+    /**
+     * @param directory the directory of puzzle files
+     * @return the puzzle files, sorted by name
+     */
+    private static File[] dataFiles(String directory){
+        File[] files = new File(directory).listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null) return new File[0];
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * Add the neighbor generation, hashing and full solve benchmarks of a starting configuration.
+     * @param cases the list to add the benchmarks to
+     * @param name the name of the puzzle
+     * @param start creates the starting configuration
+     */
+    private static void addConfigCases(List<Case> cases, String name, Callable<Configuration> start){
+        cases.add(new Case(name + "/neighbors", () -> {
+            Configuration config = start.call();
+            return () -> sink = config.getNeighbors();
+        }));
+        cases.add(new Case(name + "/hashCode", () -> {
+            Configuration config = start.call();
+            return () -> hashSink = config.hashCode();
+        }));
+        cases.add(new Case(name + "/solve", () -> {
+            Configuration config = start.call();
+            Solver solver = new Solver();
+            return () -> sink = solver.buildShortestPath(config);
+        }));
+    }
+
+    /**
+     * Warm up and measure a benchmark, then print its results.
+     * @param benchmark the benchmark to run
+     */
+    private static void run(Case benchmark) throws Exception {
+        Runnable operation = benchmark.setup().call();
+        int batch = (int) Math.max(1, iteration(operation, 1)[0] / CLOCK_READS);
+        for (int i = 1; i < WARMUP_ITERATIONS; i++)
+            iteration(operation, batch);
+
+        double[] nanosPerOp = new double[MEASURED_ITERATIONS];
+        long ops = 0, nanos = 0, bytes = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++){
+            long[] result = iteration(operation, batch);
+            nanosPerOp[i] = (double) result[1] / result[0];
+            ops += result[0];
+            nanos += result[1];
+            bytes += result[2];
+        }
+
+        double mean = Arrays.stream(nanosPerOp).average().orElse(0);
+        double deviation = Math.sqrt(Arrays.stream(nanosPerOp).map(x -> (x - mean) * (x - mean)).sum() /
+                (MEASURED_ITERATIONS - 1));
+        System.out.printf("%-36s %16.1f %12.1f %14.1f %12.1f%n", benchmark.name(), mean, deviation,
+                (double) bytes / ops, bytes / 1e6 / (nanos / 1e9));
+    }
+
+    /**
+     * Run an operation until the iteration time has passed.
+     * @param operation the operation to run
+     * @param batch the number of times the operation is run between reading the clock
+     * @return the number of operations run, the nanoseconds they took, and the bytes the thread allocated
+     */
+    private static long[] iteration(Runnable operation, int batch){
+        long startBytes = allocatedBytes(), startNanos = System.nanoTime(), ops = 0, elapsed;
+        do {
+            for (int i = 0; i < batch; i++)
+                operation.run();
+            ops += batch;
+        }while ((elapsed = System.nanoTime() - startNanos) < ITERATION_NANOS);
+        return new long[]{ops, elapsed, allocatedBytes() - startBytes};
+    }
+
+    /**
+     * Read the allocation counter of the current thread. The batch solver uses this too.
+     * @return the bytes the current thread has allocated so far, or 0 if the JVM can't tell
+     */
+    public static long allocatedBytes(){
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+}
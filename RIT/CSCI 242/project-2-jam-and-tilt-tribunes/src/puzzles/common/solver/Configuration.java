@@ -1,6 +1,7 @@
 package puzzles.common.solver;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * The representation of a single configuration for a puzzle.
@@ -20,6 +21,47 @@ public interface Configuration {
      */
     Collection<Configuration> getNeighbors();
 
+    /**
+     * Get the number of longs this configuration packs into with encode. Puzzles which support a compact
+     * encoding let the Solver store visited configurations as plain longs instead of keeping every object alive.
+     * All configurations of the same puzzle must have the same encoded length.
+     * @return the number of longs in the encoding, or 0 if this configuration has no compact encoding
+     */
+    default int getEncodedLength(){
+        return 0;
+    }
+
+    /**
+     * Pack this configuration into getEncodedLength() longs.
+     * Two configurations of the same puzzle must have the same encoding if and only if they are equal, or are
+     * images of each other which need the same number of moves to be solved, like mirrored boards.
+     * @param dest the array to write the encoding to
+     * @param offset the index in dest to start writing at
+     */
+    default void encode(long[] dest, int offset){
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has no compact encoding");
+    }
+
+    /**
+     * Rebuild a configuration of the same puzzle as this one from its encoding.
+     * @param src the array holding the encoding
+     * @param offset the index in src the encoding starts at
+     * @return the decoded configuration
+     */
+    default Configuration decode(long[] src, int offset){
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " has no compact encoding");
+    }
+
+    /**
+     * Solve this configuration without searching, for puzzles which can work out a shortest path, or that there
+     * is no solution, directly. The Solver's buildShortestPath uses this before falling back to a search.
+     * @return a shortest path to a solution, an empty list if there is no solution, or null if the configuration
+     * has to be searched
+     */
+    default List<Configuration> solveDirectly(){
+        return null;
+    }
+
     //////////////////////////////////////////////////////////////////////////////////////
     // The predecessor map from the BFS Solver forces to any puzzle configuration       //
     // to override the equals and hashCode methods.                                     //
@@ -0,0 +1,20 @@
+package puzzles.common.solver;
+
+/**
+ * An estimate of how many moves are left before a configuration is solved, used by the A* search of the Solver.
+ * To get shortest paths, heuristics must be admissible (never estimate more moves than are really needed) and
+ * consistent (a single move never lowers the estimate by more than one).
+ *
+ * @param <C> the type of configuration this heuristic estimates
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+@FunctionalInterface
+public interface Heuristic<C extends Configuration> {
+    /**
+     * Estimate the number of moves left to solve the configuration.
+     * @param config the configuration to estimate
+     * @return the estimated number of moves, which is 0 for solutions
+     */
+    int estimate(C config);
+}
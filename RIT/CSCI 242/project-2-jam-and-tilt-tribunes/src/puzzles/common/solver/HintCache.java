@@ -0,0 +1,117 @@
+package puzzles.common.solver;
+
+import java.util.List;
+
+/**
+ * Remembers the last path found to a solution, so hints along it don't need another search.
+ * The path is kept encoded, since the configurations a puzzle hands out can be changed by the player. Each hint is
+ * the neighbor of the current configuration matching the next step of the path, so asking for hints in a row
+ * only looks at the neighbors of the current configuration.
+ * If the player moves off the path, a breadth first search from the current configuration stops at the nearest
+ * configuration on the path (or solution), and the two are joined instead of solving from scratch. The joined path
+ * is only kept when it's provably as short as a fresh one, so every hint is still the next step on a shortest path.
+ * Configurations must have a compact encoding.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class HintCache {
+    /** The encoded steps of the cached path, in order, or null if there is no path */
+    private StateTable path;
+
+    /** Forget the cached path, like when a new puzzle is loaded */
+    public void clear(){
+        path = null;
+    }
+
+    /** @return true: there is a cached path */
+    public boolean hasPath(){
+        return path != null;
+    }
+
+    /**
+     * Cache the given path, replacing the last one.
+     * @param steps the path to a solution, which may be null if there is none
+     */
+    public void seed(List<Configuration> steps){
+        path = steps == null ? null : encode(steps);
+    }
+
+    /**
+     * Find the next step from a configuration along the cached path.
+     * @param config the current configuration
+     * @return the neighbor of the configuration on the path, or null if the configuration isn't on the path
+     * or is at its end
+     */
+    public Configuration nextStep(Configuration config){
+        if (path == null) return null;
+        long[] code = new long[config.getEncodedLength()];
+        config.encode(code, 0);
+        int index = path.indexOf(code);
+        if (index == -1 || index == path.size() - 1) return null;
+
+        for (Configuration nbr : config.getNeighbors()){
+            nbr.encode(code, 0);
+            if (path.keyEquals(index + 1, code))
+                return nbr;
+        }
+        return null;
+    }
+
+    /**
+     * Search from a configuration which left the cached path back to the nearest configuration on it, and cache
+     * the joined path. The joined path is kept if it reaches a solution without any detour, or its length matches
+     * the heuristic's lower bound or a fresh A* search. Otherwise the fresh path is cached instead.
+     * @param config the current configuration
+     * @param solver the solver to search with
+     * @param heuristic an admissible heuristic of the puzzle
+     * @param <C> the type of configuration
+     * @return the next step from the configuration, or null if neither the path nor a solution can be reached
+     */
+    public <C extends Configuration> Configuration rejoin(C config, Solver solver, Heuristic<C> heuristic){
+        if (path == null) return null;
+        long[] code = new long[config.getEncodedLength()];
+        List<Configuration> prefix = solver.buildPathBFS(config, cur -> {
+            cur.encode(code, 0);
+            return cur.isSolution() || path.indexOf(code) != -1;
+        });
+        if (prefix == null){
+            path = null;
+            return null;
+        }
+
+        StateTable joined = encode(prefix);
+        prefix.get(prefix.size() - 1).encode(code, 0);
+        int join = path.indexOf(code);
+        if (join != -1)
+            for (int entry = join + 1; entry < path.size(); entry++){
+                path.getKey(entry, code);
+                joined.add(code, joined.size() - 1);
+            }
+
+        // The nearest solution is reached first, so only a join onto the path can be longer than needed
+        int moves = joined.size() - 1;
+        if (!prefix.get(prefix.size() - 1).isSolution() && moves > heuristic.estimate(config)){
+            List<Configuration> fresh = solver.buildPathAStar(config, heuristic);
+            if (fresh != null && fresh.size() - 1 < moves){
+                path = encode(fresh);
+                return fresh.get(1);
+            }
+        }
+        path = joined;
+        return prefix.size() > 1 ? prefix.get(1) : nextStep(config);
+    }
+
+    /**
+     * @param steps a path of configurations
+     * @return a table of the encoded steps, in order
+     */
+    private static StateTable encode(List<Configuration> steps){
+        StateTable table = new StateTable(steps.get(0).getEncodedLength());
+        long[] code = new long[steps.get(0).getEncodedLength()];
+        for (Configuration step : steps){
+            step.encode(code, 0);
+            table.add(code, table.size() - 1);
+        }
+        return table;
+    }
+}
@@ -0,0 +1,59 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * A binary min heap of longs, so the open set of a search doesn't need an object per entry.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+final class LongHeap {
+    /** The values of the heap, where the children of i are at 2i + 1 and 2i + 2 */
+    private long[] values = new long[1 << 10];
+
+    /** The number of values in the heap */
+    private int size;
+
+    /** @return the number of values in the heap */
+    int size(){
+        return size;
+    }
+
+    /** @return true: there are no values in the heap */
+    boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Add a value to the heap.
+     * @param value the value to add
+     */
+    void add(long value){
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        int i = size++;
+        while (i > 0 && values[(i - 1) / 2] > value){ // Move parents down until the value fits
+            values[i] = values[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Remove the smallest value from the heap.
+     * Assumes the heap isn't empty.
+     * @return the smallest value
+     */
+    long remove(){
+        long min = values[0], last = values[--size];
+        int i = 0;
+        while (2 * i + 1 < size){ // Move the smaller child up until the last value fits
+            int child = 2 * i + 1;
+            if (child + 1 < size && values[child + 1] < values[child]) child++;
+            if (values[child] >= last) break;
+            values[i] = values[child];
+            i = child;
+        }
+        values[i] = last;
+        return min;
+    }
+}
@@ -0,0 +1,20 @@
+package puzzles.common.solver;
+
+/**
+ * The cost of a single move, used by the Dijkstra search of the Solver to find the cheapest path instead of the
+ * one with the fewest moves.
+ *
+ * @param <C> the type of configuration this cost is for
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+@FunctionalInterface
+public interface MoveCost<C extends Configuration> {
+    /**
+     * Find the cost of moving from one configuration to its neighbor.
+     * @param from the configuration before the move
+     * @param to the neighbor after the move
+     * @return the cost of the move, which must not be negative
+     */
+    int cost(C from, C to);
+}
@@ -0,0 +1,192 @@
+package puzzles.common.solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A file of fixed size records of longs, used by the external breadth first search of the Solver to keep its
+ * levels, runs and visited set on disk. Records are written through a small buffer and read back by memory
+ * mapping the file one chunk at a time, so files larger than memory (or than one mapping) can be streamed.
+ * Every record is an encoded configuration, sometimes followed by extra longs like the index of its parent.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+final class RecordFile {
+    /** The most bytes mapped at once while reading */
+    private static final int CHUNK_BYTES = 1 << 26;
+
+    /** The size of the write buffer, in bytes */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private RecordFile(){}
+
+    /**
+     * Compare the encodings at the start of two records.
+     * @param a the first record
+     * @param b the second record
+     * @param width the number of longs in each encoding
+     * @return less than, equal to or greater than 0 as the first encoding is less than, equal to or greater than
+     * the second
+     */
+    static int compare(long[] a, long[] b, int width){
+        return Arrays.compare(a, 0, width, b, 0, width);
+    }
+
+    /** Appends records to a new file */
+    static final class Writer implements Closeable {
+        /** The file being written */
+        private final FileChannel channel;
+
+        /** Holds records until they are written */
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+
+        /** The number of records written so far */
+        private long count;
+
+        /**
+         * Create a file to write records to, replacing any file already there.
+         * @param file the file to write
+         * @throws IOException if the file can't be created
+         */
+        Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Write a record.
+         * @param record the longs of the record
+         * @param length the number of longs in the record
+         * @throws IOException if the file can't be written
+         */
+        void write(long[] record, int length) throws IOException {
+            write(record, 0, length);
+        }
+
+        /**
+         * Write a record from part of an array.
+         * @param source the array holding the record
+         * @param offset the index of the record's first long
+         * @param length the number of longs in the record
+         * @throws IOException if the file can't be written
+         */
+        void write(long[] source, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++){
+                if (!buffer.hasRemaining()) flush();
+                buffer.putLong(source[i]);
+            }
+            count++;
+        }
+
+        /** @return the number of records written so far */
+        long count(){
+            return count;
+        }
+
+        /**
+         * Write out the buffered records.
+         * @throws IOException if the file can't be written
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            channel.close();
+        }
+    }
+
+    /** Reads the records of a file in order, or one at a time by index */
+    static final class Reader implements Closeable, Comparable<Reader> {
+        /** The file being read */
+        private final FileChannel channel;
+
+        /** The number of longs in each record, and in each encoding */
+        private final int length, width;
+
+        /** The number of records in the file */
+        private final long count;
+
+        /** The records per mapped chunk */
+        private final long chunkRecords;
+
+        /** The mapped chunk, or null before the first read, and the index of its first record */
+        private LongBuffer chunk;
+        private long chunkStart;
+
+        /** The index of the next record read by next */
+        private long position;
+
+        /** The last record read by next */
+        final long[] current;
+
+        /**
+         * Open a file of records.
+         * @param file the file to read
+         * @param length the number of longs in each record
+         * @param width the number of longs of each record's encoding, which records are compared by
+         * @throws IOException if the file can't be read
+         */
+        Reader(Path file, int length, int width) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.length = length;
+            this.width = width;
+            count = channel.size() / ((long) length * Long.BYTES);
+            chunkRecords = Math.max(1, CHUNK_BYTES / (length * Long.BYTES));
+            current = new long[length];
+        }
+
+        /** @return the number of records in the file */
+        long count(){
+            return count;
+        }
+
+        /**
+         * Read the next record into current.
+         * @return false if there are no more records
+         * @throws IOException if the file can't be read
+         */
+        boolean next() throws IOException {
+            if (position == count) return false;
+            read(position++, current);
+            return true;
+        }
+
+        /**
+         * Read the record at an index.
+         * @param index the index of the record
+         * @param dest the array to read the record into
+         * @throws IOException if the file can't be read
+         */
+        void read(long index, long[] dest) throws IOException {
+            if (chunk == null || index < chunkStart || index >= chunkStart + chunkRecords){
+                chunkStart = index - index % chunkRecords;
+                long records = Math.min(chunkRecords, count - chunkStart);
+                chunk = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart * length * Long.BYTES,
+                        records * length * Long.BYTES).asLongBuffer();
+            }
+            chunk.get((int) ((index - chunkStart) * length), dest, 0, length);
+        }
+
+        /** Readers are ordered by the encoding of their current record, so they can be merged with a heap */
+        @Override
+        public int compareTo(Reader other){
+            return compare(current, other.current, width);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package puzzles.common.solver;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CancellationException;
+
+/**
+ * A table of the number of moves left to solve every configuration reachable from a starting configuration.
+ * It's built once by enumerating every reachable configuration, then searching backward from all the solved ones
+ * (a retrograde breadth first search). Since the search goes backward along getNeighbors, every move of the puzzle
+ * must be undoable, like in jam.
+ * The table is kept in a file and memory mapped, so opening it again for the same puzzle is instant. The file has
+ * a header (magic, version, encoded length, count, SHA-256 of the puzzle), then the encodings sorted so they can be
+ * binary searched, then the number of moves left for each encoding.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class SolutionDatabase {
+    /** The moves left of a configuration which can't be solved, or isn't in the table */
+    public static final int UNSOLVABLE = -1;
+
+    /** Marks the start of a database file ("SLDB") */
+    private static final int MAGIC = 0x534C4442;
+
+    /** The version of the file format */
+    private static final int VERSION = 2;
+
+    /** The size of the digest of the puzzle, in bytes */
+    private static final int DIGEST_BYTES = 32;
+
+    /** The size of the header, in bytes */
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + DIGEST_BYTES;
+
+    /** The number of longs in each encoding */
+    private final int width;
+
+    /** The number of configurations in the table */
+    private final int count;
+
+    /** The sorted encodings, back to back */
+    private final LongBuffer keys;
+
+    /** The moves left for each encoding */
+    private final ShortBuffer distances;
+
+    /**
+     * Create a database on top of a mapped file whose header has already been checked.
+     * @param buffer the mapped file
+     * @param width the number of longs in each encoding
+     * @param count the number of configurations in the file
+     */
+    private SolutionDatabase(ByteBuffer buffer, int width, int count){
+        this.width = width;
+        this.count = count;
+        keys = buffer.position(HEADER_BYTES).slice().asLongBuffer().limit(count * width);
+        distances = buffer.position(HEADER_BYTES + count * width * Long.BYTES).slice().asShortBuffer().limit(count);
+    }
+
+    /**
+     * Open the database in the given file, building it first if the file is missing, was built for another
+     * puzzle, or doesn't hold the given configuration.
+     *
+     * @param config any configuration of the puzzle, which must have a compact encoding
+     * @param puzzle a description of the puzzle, like its starting board, whose digest identifies the file
+     * @param file the file the database is kept in
+     * @return the database holding every configuration reachable from config
+     * @throws IOException if the file can't be read or written
+     */
+    public static SolutionDatabase open(Configuration config, String puzzle, Path file) throws IOException {
+        byte[] digest = digest(puzzle);
+        SolutionDatabase database = Files.exists(file) ? map(file, config.getEncodedLength(), digest) : null;
+        if (database == null || !database.contains(config)){
+            build(config, digest, file);
+            database = map(file, config.getEncodedLength(), digest);
+            if (database == null) throw new IOException("Could not read the database written to " + file);
+        }
+        return database;
+    }
+
+    /**
+     * Memory map a database file.
+     * @param file the file to map
+     * @param width the number of longs each encoding should have
+     * @param digest the digest of the puzzle the file should have been built for
+     * @return the database, or null if the file isn't a database of the puzzle with encodings of the given width
+     * @throws IOException if the file can't be read
+     */
+    private static SolutionDatabase map(Path file, int width, byte[] digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ||
+                    buffer.getInt(8) != width ||
+                    !buffer.slice(4 * Integer.BYTES, DIGEST_BYTES).equals(ByteBuffer.wrap(digest)))
+                return null;
+            int count = buffer.getInt(12);
+            if (buffer.limit() != HEADER_BYTES + (long) count * (width * Long.BYTES + Short.BYTES))
+                return null;
+            return new SolutionDatabase(buffer, width, count);
+        }
+    }
+
+    /**
+     * Build the database of every configuration reachable from the given one and write it to the file.
+     * The file is written next to its final location first, so other sessions never see a partial file, and is
+     * deleted if building fails. Like a search, building stops if its thread is interrupted, in every phase.
+     *
+     * @param config the configuration to start enumerating from
+     * @param digest the digest of the puzzle, written in the header
+     * @param file the file to write the database to
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if a configuration needs more moves than the file can hold
+     * @throws CancellationException if the thread building the database was interrupted
+     */
+    private static void build(Configuration config, byte[] digest, Path file) throws IOException {
+        int width = config.getEncodedLength();
+        if (width == 0)
+            throw new IllegalArgumentException("A solution database needs a configuration with a compact encoding");
+        StateTable reachable = new StateTable(width);
+        long[] code = new long[width];
+        config.encode(code, 0);
+        reachable.add(code, -1);
+
+        // Enumerate every reachable configuration, the table doubles as the queue
+        for (int next = 0; next < reachable.size(); next++){
+            checkCancelled();
+            reachable.getKey(next, code);
+            for (Configuration nbr : config.decode(code, 0).getNeighbors()){
+                nbr.encode(code, 0);
+                reachable.add(code, next);
+            }
+        }
+
+        // Search backward from every solution at once
+        int count = reachable.size(), head = 0, tail = 0;
+        int[] distances = new int[count], queue = new int[count];
+        Arrays.fill(distances, UNSOLVABLE);
+        for (int entry = 0; entry < count; entry++){
+            reachable.getKey(entry, code);
+            if (config.decode(code, 0).isSolution()){
+                distances[entry] = 0;
+                queue[tail++] = entry;
+            }
+        }
+        while (head < tail){
+            checkCancelled();
+            int entry = queue[head++];
+            reachable.getKey(entry, code);
+            for (Configuration nbr : config.decode(code, 0).getNeighbors()){
+                nbr.encode(code, 0);
+                int nbrEntry = reachable.indexOf(code);
+                if (distances[nbrEntry] == UNSOLVABLE){
+                    if (distances[entry] == Short.MAX_VALUE)
+                        throw new IllegalArgumentException("A configuration needs more than " + Short.MAX_VALUE +
+                                " moves, which a solution database can't hold");
+                    distances[nbrEntry] = distances[entry] + 1;
+                    queue[tail++] = nbrEntry;
+                }
+            }
+        }
+
+        // Sort the encodings so they can be binary searched
+        long[][] keys = new long[count][width];
+        Integer[] order = new Integer[count];
+        for (int entry = 0; entry < count; entry++){
+            reachable.getKey(entry, keys[entry]);
+            order[entry] = entry;
+        }
+        Arrays.sort(order, Comparator.comparing(entry -> keys[entry], (a, b) -> {
+            checkCancelled();
+            return Arrays.compare(a, b);
+        }));
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))){
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(width);
+                out.writeInt(count);
+                out.write(digest);
+                for (int entry : order){
+                    checkCancelled();
+                    for (long word : keys[entry])
+                        out.writeLong(word);
+                }
+                for (int entry : order)
+                    out.writeShort(distances[entry]);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (IOException | RuntimeException e){
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /** @throws CancellationException if the thread building the database was interrupted */
+    private static void checkCancelled(){
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Building the database was cancelled");
+    }
+
+    /**
+     * @param puzzle a description of the puzzle
+     * @return the SHA-256 digest of the description
+     */
+    private static byte[] digest(String puzzle){
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(puzzle.getBytes(StandardCharsets.UTF_8));
+        }catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("Every Java platform has SHA-256", e);
+        }
+    }
+
+    /**
+     * Binary search the sorted encodings.
+     * @param code the encoding to find
+     * @return the index of the encoding, or -1 if it isn't in the table
+     */
+    private int indexOf(long[] code){
+        int low = 0, high = count - 1;
+        while (low <= high){
+            int mid = (low + high) >>> 1, compare = 0;
+            for (int i = 0; i < width && compare == 0; i++)
+                compare = Long.compare(keys.get(mid * width + i), code[i]);
+            if (compare == 0) return mid;
+            if (compare < 0) low = mid + 1;
+            else high = mid - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * @param config a configuration of the puzzle
+     * @return true: the configuration is in the table
+     */
+    public boolean contains(Configuration config){
+        long[] code = new long[width];
+        config.encode(code, 0);
+        return indexOf(code) != -1;
+    }
+
+    /**
+     * Look up the number of moves left to solve a configuration.
+     * @param config a configuration of the puzzle
+     * @return the fewest moves to solve the configuration, or UNSOLVABLE if it can't be solved or isn't in the table
+     */
+    public int getDistance(Configuration config){
+        long[] code = new long[width];
+        config.encode(code, 0);
+        int index = indexOf(code);
+        return index == -1 ? UNSOLVABLE : distances.get(index);
+    }
+
+    /**
+     * Find the next step on a shortest path to a solution, by looking up each neighbor of the configuration.
+     * @param config a configuration of the puzzle
+     * @return a neighbor with one less move left, or null if the configuration is solved, can't be solved,
+     * or isn't in the table
+     */
+    public Configuration nextStep(Configuration config){
+        int distance = getDistance(config);
+        if (distance > 0)
+            for (Configuration nbr : config.getNeighbors())
+                if (getDistance(nbr) == distance - 1)
+                    return nbr;
+        return null;
+    }
+
+    /** @return the number of configurations in the table */
+    public int size(){
+        return count;
+    }
+}
@@ -0,0 +1,68 @@
+package puzzles.common.solver;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs searches one at a time on a background thread, so a user interface doesn't freeze while solving.
+ * Results are handed back through an executor supplied with each search, like Platform::runLater for JavaFX,
+ * so the model never has to know which toolkit is showing it. A running search is cancelled by interrupting
+ * its thread, which the Solver checks while it expands configurations. A search which fails is reported through
+ * the callback as well, so the interface is never left waiting for a result which won't come.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class SolveService {
+    /** The background thread searches run on, which doesn't keep the program alive */
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "puzzle-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The running or last search */
+    private Future<?> pending;
+
+    /** @return true: a search is running */
+    public synchronized boolean isRunning(){
+        return pending != null && !pending.isDone();
+    }
+
+    /**
+     * Start a search on the background thread, unless one is already running.
+     *
+     * @param search the search to run, returning its result
+     * @param onDone given the result of the search, run on the callback executor
+     * @param onCancel run on the callback executor if the search is cancelled
+     * @param onError given the exception if the search fails, run on the callback executor
+     * @param callback the executor results are handed back through
+     * @param <T> the type of result the search returns
+     * @return true: the search was started
+     */
+    public synchronized <T> boolean submit(Callable<T> search, Consumer<T> onDone, Runnable onCancel,
+                                           Consumer<RuntimeException> onError, Executor callback){
+        if (isRunning()) return false;
+        pending = worker.submit(() -> {
+            try {
+                T result = search.call();
+                callback.execute(() -> onDone.accept(result));
+            }catch (CancellationException e){
+                callback.execute(onCancel);
+            }catch (RuntimeException e){
+                callback.execute(() -> onError.accept(e));
+            }
+            return null;
+        });
+        return true;
+    }
+
+    /** Cancel the running search, if there is one */
+    public synchronized void cancel(){
+        if (pending != null) pending.cancel(true);
+    }
+}
@@ -1,6 +1,17 @@
 package puzzles.common.solver;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Class for solving the best path for a given Configuration using breadth first search.
@@ -8,23 +19,131 @@ import java.util.*;
  * @author Ethan Hartman (theeman05)
  */
 public class Solver{
+    /** The most configurations a single parallel task will handle before splitting */
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    /** The number of configurations expanded between progress reports */
+    private static final int PROGRESS_INTERVAL = 1 << 14;
+
+    /** The number of configurations the transposition table of IDA* remembers by default */
+    public static final int DEFAULT_TRANSPOSITION_SIZE = 1 << 16;
+
+    /** The number of neighbors the external breadth first search sorts in memory by default */
+    public static final int DEFAULT_RUN_SIZE = 1 << 18;
+
+    /** Returned by a depth first search of IDA* when it found a solution */
+    private static final int FOUND = -1;
+
     /** The last count of total and unique configs generated by this Solver */
     private int lastTotalConfigs, lastUniqueConfigs;
 
+    /** The most configurations waiting to be expanded at once during the last search */
+    private int lastPeakFrontier;
+
+    /** Told about the progress of long searches, or null */
+    private volatile ProgressListener progressListener;
+
+    /** Receives the progress of a search while it runs */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called every few thousand configurations a search expands, on the thread running the search.
+         * @param explored the unique configurations found so far
+         * @param frontier the configurations found but not expanded yet
+         */
+        void progress(int explored, int frontier);
+    }
+
+    /**
+     * Set what is told about the progress of searches.
+     * @param progressListener the listener, or null to stop reporting progress
+     */
+    public void setProgressListener(ProgressListener progressListener){
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Report progress every PROGRESS_INTERVAL expansions, and stop the search if its thread was interrupted.
+     * Searches check in once per expansion, or once per level when a level is expanded in parallel, so a search
+     * running on a worker thread can be cancelled by interrupting it.
+     *
+     * @param expanded the configurations expanded so far
+     * @param frontier the configurations found but not expanded yet
+     * @throws CancellationException if the thread running the search was interrupted
+     */
+    private void checkIn(int expanded, int frontier){
+        if (expanded % PROGRESS_INTERVAL == 0) checkIn(frontier);
+    }
+
+    /**
+     * Report progress now, and stop the search if its thread was interrupted.
+     *
+     * @param frontier the configurations found but not expanded yet
+     * @throws CancellationException if the thread running the search was interrupted
+     */
+    private void checkIn(int frontier){
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Search cancelled");
+        ProgressListener listener = progressListener;
+        if (listener != null) listener.progress(lastUniqueConfigs, frontier);
+    }
+
+    /**
+     * Keep track of the largest frontier of the search.
+     * @param frontier the configurations found but not expanded yet
+     */
+    private void noteFrontier(int frontier){
+        if (frontier > lastPeakFrontier) lastPeakFrontier = frontier;
+    }
+
     /**
      * Return the shortest path for solving a Configuration.
+     * If the configuration has a compact encoding, the visited configurations are stored encoded.
      *
      * @param start the beginning configuration
      * @return the shortest path for solving the given Configuration.
      */
     public List<Configuration> buildPathBFS(Configuration start){
+        return buildPathBFS(start, Configuration::isSolution);
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration, without searching if the configuration can solve
+     * itself directly, or with breadth first search otherwise. A direct path counts just the configurations on it,
+     * or only the start if there is no solution.
+     *
+     * @param start the beginning configuration
+     * @return the shortest path for solving the given Configuration, or null if there is no solution.
+     * @see Configuration#solveDirectly()
+     */
+    public List<Configuration> buildShortestPath(Configuration start){
+        List<Configuration> path = start.solveDirectly();
+        if (path == null) return buildPathBFS(start);
+        lastTotalConfigs = lastUniqueConfigs = Math.max(path.size(), 1);
+        lastPeakFrontier = 1;
+        return path.isEmpty() ? null : path;
+    }
+
+    /**
+     * Return the shortest path from a Configuration to the nearest configuration which is a goal.
+     * If the configuration has a compact encoding, the visited configurations are stored encoded.
+     *
+     * @param start the beginning configuration
+     * @param isGoal tests if a configuration ends the search
+     * @return the shortest path to a goal, or null if no goal can be reached.
+     */
+    public List<Configuration> buildPathBFS(Configuration start, Predicate<Configuration> isGoal){
+        if (start.getEncodedLength() > 0) return buildPathCompactBFS(start, isGoal);
+
         Map<Configuration, Configuration> predecessor = new HashMap<>();
         predecessor.put(start, null);
         Queue<Configuration> toVisit = new LinkedList<>();
         toVisit.offer(start);
 
-        lastTotalConfigs = lastUniqueConfigs = 1;
-        while (!toVisit.isEmpty() && !toVisit.peek().isSolution()) { // Loop until a solution is or isn't found
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        // Loop until a solution is or isn't found
+        for (int expanded = 1; !toVisit.isEmpty() && !isGoal.test(toVisit.peek()); expanded++) {
+            checkIn(expanded, toVisit.size());
             Configuration curConfig = toVisit.remove();
             for (Configuration nbr : curConfig.getNeighbors()){
                 if (!predecessor.containsKey(nbr)){
@@ -34,6 +153,7 @@ public class Solver{
                 }
                 lastTotalConfigs++;
             }
+            noteFrontier(toVisit.size());
         }
 
         List<Configuration> path = null;
@@ -50,6 +170,739 @@ public class Solver{
         return path;
     }
 
+    /**
+     * Breadth first search which keeps the visited configurations encoded in a StateTable instead of a map.
+     * The table is in the order configurations were reached, so it's also the queue; configurations are
+     * decoded when it's their turn to be expanded. Only the path is rebuilt as real configurations, by following
+     * the neighbors of the start which match the encoded path, so it's the same as what buildPathBFS would return.
+     *
+     * @param start the beginning configuration, which must have a compact encoding
+     * @param isGoal tests if a configuration ends the search
+     * @return the shortest path to a goal, or null if no goal can be reached.
+     */
+    private List<Configuration> buildPathCompactBFS(Configuration start, Predicate<Configuration> isGoal){
+        int width = start.getEncodedLength();
+        StateTable visited = new StateTable(width);
+        long[] code = new long[width];
+        start.encode(code, 0);
+        visited.add(code, -1);
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        int solution = -1;
+        for (int next = 0; next < visited.size() && solution == -1; next++){ // Loop until a solution is or isn't found
+            checkIn(next + 1, visited.size() - next);
+            visited.getKey(next, code);
+            Configuration curConfig = next == 0 ? start : start.decode(code, 0);
+            if (isGoal.test(curConfig))
+                solution = next;
+            else{
+                for (Configuration nbr : curConfig.getNeighbors()){
+                    nbr.encode(code, 0);
+                    if (visited.add(code, next) != -1)
+                        lastUniqueConfigs++;
+                    lastTotalConfigs++;
+                }
+                noteFrontier(visited.size() - next - 1);
+            }
+        }
+
+        return solution == -1 ? null : replayPath(start, visited, solution);
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration using A* search.
+     * Configurations are expanded in order of their moves so far plus the heuristic's estimate of the moves left,
+     * so with a good heuristic far fewer configurations are expanded than with breadth first search.
+     * The open set is a heap of longs and the visited configurations are kept encoded, so the configuration must
+     * have a compact encoding. The total and unique config counts are kept the same way as buildPathBFS.
+     *
+     * @param start the beginning configuration
+     * @param heuristic an admissible and consistent estimate of the moves left for a configuration
+     * @param <C> the type of configuration, which every neighbor must also be
+     * @return the shortest path for solving the given Configuration.
+     * @throws IllegalArgumentException if the configuration has no compact encoding
+     */
+    public <C extends Configuration> List<Configuration> buildPathAStar(C start, Heuristic<C> heuristic){
+        return buildPathBestFirst(start, heuristic, (from, to) -> 1);
+    }
+
+    /**
+     * Return the cheapest path for solving a Configuration using Dijkstra's algorithm, where each move has its own
+     * cost instead of every move costing one. Configurations are expanded in order of their cost so far, so the
+     * first solution expanded is the cheapest. Like buildPathAStar, the configuration must have a compact encoding.
+     *
+     * @param start the beginning configuration
+     * @param moveCost the cost of each move
+     * @param <C> the type of configuration, which every neighbor must also be
+     * @return the cheapest path for solving the given Configuration.
+     * @throws IllegalArgumentException if the configuration has no compact encoding
+     */
+    public <C extends Configuration> List<Configuration> buildPathDijkstra(C start, MoveCost<C> moveCost){
+        return buildPathBestFirst(start, config -> 0, moveCost);
+    }
+
+    /**
+     * Best first search shared by A* and Dijkstra: configurations are expanded in order of their cost so far plus
+     * the heuristic's estimate of the cost left.
+     *
+     * @param start the beginning configuration
+     * @param heuristic an admissible and consistent estimate of the cost left for a configuration
+     * @param moveCost the cost of each move
+     * @param <C> the type of configuration, which every neighbor must also be
+     * @return the cheapest path for solving the given Configuration.
+     * @throws IllegalArgumentException if the configuration has no compact encoding
+     */
+    @SuppressWarnings("unchecked")
+    private <C extends Configuration> List<Configuration> buildPathBestFirst(C start, Heuristic<C> heuristic,
+                                                                            MoveCost<C> moveCost){
+        int width = start.getEncodedLength();
+        if (width == 0)
+            throw new IllegalArgumentException("Best first search needs a configuration with a compact encoding");
+        StateTable visited = new StateTable(width);
+        long[] code = new long[width];
+        start.encode(code, 0);
+        visited.add(code, -1);
+
+        // Cost from the start and estimated cost left, by entry
+        int[] costs = new int[1 << 10], estimates = new int[1 << 10];
+        estimates[0] = heuristic.estimate(start);
+        BitSet closed = new BitSet();
+        LongHeap open = new LongHeap();
+        open.add(openKey(estimates[0], 0));
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        int solution = -1, expanded = 0;
+        while (solution == -1 && !open.isEmpty()) { // Loop until a solution is or isn't found
+            long key = open.remove();
+            int entry = (int) key;
+            if (closed.get(entry) || key >>> Integer.SIZE != costs[entry] + estimates[entry])
+                continue; // Already expanded, or there is a newer key with a shorter cost
+            closed.set(entry);
+            checkIn(++expanded, open.size());
+
+            visited.getKey(entry, code);
+            C curConfig = entry == 0 ? start : (C) start.decode(code, 0);
+            if (curConfig.isSolution()){
+                solution = entry;
+                continue;
+            }
+            for (Configuration nbr : curConfig.getNeighbors()){
+                lastTotalConfigs++;
+                nbr.encode(code, 0);
+                int cost = costs[entry] + moveCost.cost(curConfig, (C) nbr), nbrEntry = visited.indexOf(code);
+                if (nbrEntry == -1){
+                    nbrEntry = visited.add(code, entry);
+                    if (nbrEntry == costs.length){
+                        costs = Arrays.copyOf(costs, nbrEntry * 2);
+                        estimates = Arrays.copyOf(estimates, nbrEntry * 2);
+                    }
+                    estimates[nbrEntry] = heuristic.estimate((C) nbr);
+                    lastUniqueConfigs++;
+                }else if (closed.get(nbrEntry) || cost >= costs[nbrEntry])
+                    continue;
+                visited.setParent(nbrEntry, entry);
+                costs[nbrEntry] = cost;
+                open.add(openKey(cost + estimates[nbrEntry], nbrEntry));
+            }
+            noteFrontier(open.size());
+        }
+        return solution == -1 ? null : replayPath(start, visited, solution);
+    }
+
+    /**
+     * @param priority the estimated total moves of the entry
+     * @param entry the index of the entry
+     * @return the key of the entry in the open set, ordered by priority then by entry
+     */
+    private static long openKey(int priority, int entry){
+        return (long) priority << Integer.SIZE | entry;
+    }
+
+    /**
+     * Rebuild the path to an entry of the table as real configurations.
+     * Each step is the neighbor of the previous step with the same encoding as the next entry of the path,
+     * so the path holds the same configurations the puzzle would make by moving from the start.
+     *
+     * @param start the beginning configuration, which is the first entry of the table
+     * @param visited the table of encoded configurations
+     * @param end the entry at the end of the path
+     * @return the path from the start to the end entry
+     */
+    private List<Configuration> replayPath(Configuration start, StateTable visited, int end){
+        LinkedList<long[]> codes = new LinkedList<>();
+        for (int entry = end; entry > 0; entry = visited.getParent(entry)){
+            long[] code = new long[start.getEncodedLength()];
+            visited.getKey(entry, code);
+            codes.add(0, code);
+        }
+        return replayPath(start, codes);
+    }
+
+    /**
+     * Rebuild a path of encodings as real configurations, each the neighbor of the previous step with the next
+     * encoding.
+     *
+     * @param start the beginning configuration
+     * @param codes the encodings of the steps after the start, in order
+     * @return the path from the start through every encoding
+     */
+    private List<Configuration> replayPath(Configuration start, List<long[]> codes){
+        long[] code = new long[start.getEncodedLength()];
+        List<Configuration> path = new LinkedList<>();
+        path.add(start);
+        Configuration cur = start;
+        for (long[] next : codes){
+            for (Configuration nbr : cur.getNeighbors()){
+                nbr.encode(code, 0);
+                if (Arrays.equals(code, next)){
+                    cur = nbr;
+                    break;
+                }
+            }
+            path.add(cur);
+        }
+        return path;
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration using breadth first search with the frontier and
+     * visited configurations on disk, sorting DEFAULT_RUN_SIZE neighbors in memory at a time.
+     *
+     * @param start the beginning configuration
+     * @param directory the directory to keep the search's files in
+     * @return the shortest path for solving the given Configuration.
+     * @throws IOException if the files can't be written or read
+     * @see #buildPathExternalBFS(Configuration, Path, int)
+     */
+    public List<Configuration> buildPathExternalBFS(Configuration start, Path directory) throws IOException {
+        return buildPathExternalBFS(start, directory, DEFAULT_RUN_SIZE);
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration using breadth first search with the frontier and
+     * visited configurations on disk, for state spaces which don't fit in memory.
+     * Each level of the search is a file of encodings in sorted order, each with the index of its parent in the
+     * level before. The neighbors of a level are sorted in memory a run at a time and written out, then the runs
+     * are merged, dropping duplicates, and joined against the sorted file of every configuration visited so far,
+     * so only new configurations make it into the next level (delayed duplicate detection). The same merge writes
+     * the next visited file. Files are read by memory mapping them.
+     * When a level holds a solution, its path is followed back through the parent indexes and replayed from the
+     * start. Levels are expanded in sorted order instead of the order they were reached, so the path can differ
+     * from buildPathBFS but is just as short. The total configs count every neighbor generated, the unique
+     * configs count the configurations in every level, and the peak frontier is the largest level.
+     * The files are kept in a new directory inside the given one, which is deleted when the search ends.
+     *
+     * @param start the beginning configuration, which must have a compact encoding
+     * @param directory the directory to keep the search's files in
+     * @param runSize the most neighbors sorted in memory at once
+     * @return the shortest path for solving the given Configuration, or null if there is none.
+     * @throws IOException if the files can't be written or read
+     * @throws IllegalArgumentException if the configuration has no compact encoding
+     */
+    public List<Configuration> buildPathExternalBFS(Configuration start, Path directory, int runSize)
+            throws IOException {
+        int width = start.getEncodedLength();
+        if (width == 0)
+            throw new IllegalArgumentException("External search needs a configuration with a compact encoding");
+        Path work = Files.createTempDirectory(directory, "bfs");
+        try {
+            return searchExternal(start, work, width, runSize);
+        }finally{
+            try (Stream<Path> files = Files.list(work)){
+                for (Path file : files.toList())
+                    delete(file);
+            }
+            delete(work);
+        }
+    }
+
+    /**
+     * The levels of the external breadth first search.
+     *
+     * @param start the beginning configuration
+     * @param work the directory of the search's files
+     * @param width the number of longs in each encoding
+     * @param runSize the most neighbors sorted in memory at once
+     * @return the shortest path for solving the given Configuration, or null if there is none.
+     * @throws IOException if the files can't be written or read
+     */
+    private List<Configuration> searchExternal(Configuration start, Path work, int width, int runSize)
+            throws IOException {
+        int length = width + 1; // Each level record is an encoding then the index of its parent
+        long[] record = new long[length];
+        start.encode(record, 0);
+        record[width] = -1;
+        try (RecordFile.Writer level = new RecordFile.Writer(levelFile(work, 0));
+             RecordFile.Writer visited = new RecordFile.Writer(visitedFile(work, 0))){
+            level.write(record, length);
+            visited.write(record, width);
+        }
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        long[] run = new long[runSize * length];
+        int expanded = 0;
+        for (int depth = 0; ; depth++){
+            List<Path> runFiles = new ArrayList<>();
+            int buffered = 0;
+            try (RecordFile.Reader level = new RecordFile.Reader(levelFile(work, depth), length, width)){
+                if (level.count() == 0) return null;
+                for (long index = 0; level.next(); index++){
+                    checkIn(++expanded, (int) Math.min(Integer.MAX_VALUE, level.count() - index));
+                    Configuration curConfig = depth == 0 ? start : start.decode(level.current, 0);
+                    if (curConfig.isSolution())
+                        return replayPath(start, externalPath(work, depth, index, length));
+                    for (Configuration nbr : curConfig.getNeighbors()){
+                        lastTotalConfigs++;
+                        nbr.encode(run, buffered * length);
+                        run[buffered * length + width] = index;
+                        if (++buffered == runSize){
+                            runFiles.add(writeRun(work, runFiles.size(), run, buffered, length, width));
+                            buffered = 0;
+                        }
+                    }
+                }
+            }
+            if (buffered > 0) runFiles.add(writeRun(work, runFiles.size(), run, buffered, length, width));
+            int added = (int) mergeLevel(work, depth, runFiles, length, width);
+            lastUniqueConfigs += added;
+            noteFrontier(added);
+        }
+    }
+
+    /**
+     * Sort a run of neighbors by their encodings and write it to a file.
+     *
+     * @param work the directory of the search's files
+     * @param number the number of the run in this level
+     * @param run the neighbor records, back to back
+     * @param count the number of records in the run
+     * @param length the number of longs in each record
+     * @param width the number of longs in each encoding
+     * @return the file of the run
+     * @throws IOException if the file can't be written
+     */
+    private static Path writeRun(Path work, int number, long[] run, int count, int length, int width)
+            throws IOException {
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i * length;
+        Arrays.sort(order, (a, b) -> Arrays.compare(run, a, a + width, run, b, b + width));
+        Path file = work.resolve("run-" + number);
+        try (RecordFile.Writer writer = new RecordFile.Writer(file)){
+            for (int offset : order)
+                writer.write(run, offset, length);
+        }
+        return file;
+    }
+
+    /**
+     * Merge the sorted runs of a level's neighbors into the next level, keeping one record of each encoding that
+     * isn't in the visited file, and write the visited file of the next level.
+     *
+     * @param work the directory of the search's files
+     * @param depth the depth of the level which was expanded
+     * @param runFiles the sorted runs of the level's neighbors
+     * @param length the number of longs in each record
+     * @param width the number of longs in each encoding
+     * @return the number of configurations in the next level
+     * @throws IOException if the files can't be written or read
+     */
+    private static long mergeLevel(Path work, int depth, List<Path> runFiles, int length, int width)
+            throws IOException {
+        PriorityQueue<RecordFile.Reader> runs = new PriorityQueue<>();
+        long[] last = new long[width];
+        boolean hasLast = false;
+        try (RecordFile.Reader visited = new RecordFile.Reader(visitedFile(work, depth), width, width);
+             RecordFile.Writer nextLevel = new RecordFile.Writer(levelFile(work, depth + 1));
+             RecordFile.Writer nextVisited = new RecordFile.Writer(visitedFile(work, depth + 1))){
+            for (Path file : runFiles){
+                RecordFile.Reader run = new RecordFile.Reader(file, length, width);
+                if (run.next()) runs.add(run);
+                else run.close();
+            }
+            boolean hasVisited = visited.next();
+            while (!runs.isEmpty()){
+                RecordFile.Reader run = runs.remove();
+                long[] candidate = run.current;
+                if (!hasLast || RecordFile.compare(candidate, last, width) != 0){ // Skip duplicates within the level
+                    while (hasVisited && RecordFile.compare(visited.current, candidate, width) < 0){
+                        nextVisited.write(visited.current, width);
+                        hasVisited = visited.next();
+                    }
+                    if (!hasVisited || RecordFile.compare(visited.current, candidate, width) != 0){
+                        nextLevel.write(candidate, length);
+                        nextVisited.write(candidate, width);
+                    }
+                    System.arraycopy(candidate, 0, last, 0, width);
+                    hasLast = true;
+                }
+                if (run.next()) runs.add(run);
+                else run.close();
+            }
+            while (hasVisited){
+                nextVisited.write(visited.current, width);
+                hasVisited = visited.next();
+            }
+            return nextLevel.count();
+        }finally{
+            for (RecordFile.Reader run : runs) run.close();
+            for (Path file : runFiles) delete(file);
+            delete(visitedFile(work, depth));
+        }
+    }
+
+    /**
+     * Follow the parent indexes of the external search back from a solution.
+     *
+     * @param work the directory of the search's files
+     * @param depth the depth of the solution's level
+     * @param index the index of the solution in its level
+     * @param length the number of longs in each level record
+     * @return the encodings of the path after the start, in order
+     * @throws IOException if the level files can't be read
+     */
+    private static List<long[]> externalPath(Path work, int depth, long index, int length) throws IOException {
+        LinkedList<long[]> codes = new LinkedList<>();
+        long[] record = new long[length];
+        for (int level = depth; level > 0; level--){
+            try (RecordFile.Reader reader = new RecordFile.Reader(levelFile(work, level), length, length - 1)){
+                reader.read(index, record);
+            }
+            codes.add(0, Arrays.copyOf(record, length - 1));
+            index = record[length - 1];
+        }
+        return codes;
+    }
+
+    /**
+     * @param work the directory of the search's files
+     * @param depth the depth of a level
+     * @return the file of the level's configurations and parents
+     */
+    private static Path levelFile(Path work, int depth){
+        return work.resolve("level-" + depth);
+    }
+
+    /**
+     * @param work the directory of the search's files
+     * @param depth the depth of a level
+     * @return the file of every configuration visited up to and including the level
+     */
+    private static Path visitedFile(Path work, int depth){
+        return work.resolve("visited-" + depth);
+    }
+
+    /**
+     * Delete a file of the external search. Some systems can't delete a file while it's still mapped, so those
+     * are deleted when the program exits instead.
+     *
+     * @param file the file to delete
+     */
+    private static void delete(Path file){
+        try {
+            Files.deleteIfExists(file);
+        }catch (IOException e){
+            file.toFile().deleteOnExit();
+        }
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration using iterative deepening, which only needs memory for
+     * the current path and a small transposition table.
+     *
+     * @param start the beginning configuration
+     * @return the shortest path for solving the given Configuration.
+     * @see #buildPathIDAStar(Configuration, Heuristic, int)
+     */
+    public List<Configuration> buildPathIDAStar(Configuration start){
+        return buildPathIDAStar(start, config -> 0, DEFAULT_TRANSPOSITION_SIZE);
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration using IDA*: depth first searches which give up on
+     * configurations whose moves so far plus the heuristic's estimate go over a bound, raising the bound to the
+     * smallest estimate that went over it until a solution is found. Only the current path is kept, so memory
+     * grows with the depth of the solution instead of the number of configurations, at the cost of expanding
+     * configurations again on every pass.
+     * Configurations on the current path are never revisited. The transposition table remembers the fewest
+     * moves each recently reached configuration was reached in during this pass, evicting the least recently used,
+     * so configurations reached again in as many moves or more aren't searched twice.
+     * The total configs count every neighbor generated on every pass, and the unique configs count every
+     * configuration the passes searched, so configurations searched on several passes are counted each time.
+     * The peak frontier is the longest path searched.
+     *
+     * @param start the beginning configuration
+     * @param heuristic an admissible estimate of the moves left for a configuration
+     * @param transpositionSize the most configurations the transposition table remembers, or 0 for no table
+     * @param <C> the type of configuration, which every neighbor must also be
+     * @return the shortest path for solving the given Configuration, or null if there is none.
+     */
+    public <C extends Configuration> List<Configuration> buildPathIDAStar(C start, Heuristic<C> heuristic,
+                                                                          int transpositionSize){
+        Map<Configuration, Integer> transpositions = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Configuration, Integer> eldest){
+                return size() > transpositionSize;
+            }
+        };
+        LinkedList<Configuration> path = new LinkedList<>();
+        Set<Configuration> onPath = new HashSet<>();
+        path.add(start);
+        onPath.add(start);
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        int[] expanded = {0};
+        for (int bound = heuristic.estimate(start); bound != Integer.MAX_VALUE; ){
+            transpositions.clear();
+            bound = searchDepthFirst(path, onPath, 0, bound, heuristic, transpositions, expanded);
+            if (bound == FOUND) return new LinkedList<>(path);
+        }
+        return null;
+    }
+
+    /**
+     * One depth first search of IDA*, from the configuration at the end of the path.
+     *
+     * @param path the configurations from the start to the one being searched
+     * @param onPath the configurations of the path, to find them quickly
+     * @param moves the number of moves from the start to the configuration being searched
+     * @param bound the most moves plus estimate this pass searches
+     * @param heuristic an admissible estimate of the moves left for a configuration
+     * @param transpositions the fewest moves recent configurations were reached in this pass
+     * @param expanded the number of configurations expanded so far, in an array so it can be updated
+     * @param <C> the type of configuration, which every neighbor must also be
+     * @return FOUND with the solution at the end of the path, or the smallest moves plus estimate over the bound,
+     *         which is Integer.MAX_VALUE if nothing went over it
+     */
+    @SuppressWarnings("unchecked")
+    private <C extends Configuration> int searchDepthFirst(LinkedList<Configuration> path, Set<Configuration> onPath,
+                                                           int moves, int bound, Heuristic<C> heuristic,
+                                                           Map<Configuration, Integer> transpositions, int[] expanded){
+        C curConfig = (C) path.getLast();
+        int estimate = moves + heuristic.estimate(curConfig);
+        if (estimate > bound) return estimate;
+        if (curConfig.isSolution()) return FOUND;
+        checkIn(++expanded[0], path.size());
+
+        int nextBound = Integer.MAX_VALUE;
+        for (Configuration nbr : curConfig.getNeighbors()){
+            lastTotalConfigs++;
+            Integer seen = transpositions.get(nbr);
+            if (onPath.contains(nbr) || (seen != null && seen <= moves + 1))
+                continue; // Already on the path, or already searched from as few moves this pass
+            transpositions.put(nbr, moves + 1);
+            lastUniqueConfigs++;
+
+            path.add(nbr);
+            onPath.add(nbr);
+            noteFrontier(path.size());
+            int result = searchDepthFirst(path, onPath, moves + 1, bound, heuristic, transpositions, expanded);
+            if (result == FOUND) return FOUND;
+            nextBound = Math.min(nextBound, result);
+            onPath.remove(path.removeLast());
+        }
+        return nextBound;
+    }
+
+    /**
+     * Return the shortest path from the start to a known goal by searching forward from the start and backward
+     * from the goal until the two searches meet in the middle.
+     * Whole levels are expanded at a time, always on the side with the smaller frontier. The first configuration
+     * reached by both searches is on a shortest path, so the two predecessor chains are spliced together there.
+     * The total configs count every neighbor generated by either side, and the unique configs count the
+     * configurations visited by either side.
+     *
+     * @param start the beginning configuration
+     * @param goal the solved configuration to search towards
+     * @param reverseNeighbors gives the configurations which have the given configuration as a neighbor.
+     *                         For puzzles where every move can be undone, this is just getNeighbors.
+     * @return the shortest path from start to goal, or null if the goal can't be reached.
+     */
+    public List<Configuration> buildPathBidirectional(Configuration start, Configuration goal,
+                                                      Function<Configuration, Collection<Configuration>> reverseNeighbors){
+        // Forward maps configs to the previous config from the start, backward maps configs to the next config to the goal
+        Map<Configuration, Configuration> forward = new HashMap<>(), backward = new HashMap<>();
+        forward.put(start, null);
+        backward.put(goal, null);
+        List<Configuration> forwardLevel = List.of(start), backwardLevel = List.of(goal);
+        Configuration meet = start.equals(goal) ? start : null;
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        int[] expanded = {0};
+        while (meet == null && !forwardLevel.isEmpty() && !backwardLevel.isEmpty()){
+            List<Configuration> nextLevel = new ArrayList<>();
+            if (forwardLevel.size() <= backwardLevel.size()){
+                meet = expandSide(forwardLevel, nextLevel, forward, backward, Configuration::getNeighbors, expanded);
+                forwardLevel = nextLevel;
+            }else{
+                meet = expandSide(backwardLevel, nextLevel, backward, forward, reverseNeighbors, expanded);
+                backwardLevel = nextLevel;
+            }
+            lastUniqueConfigs = forward.size() + backward.size();
+            noteFrontier(forwardLevel.size() + backwardLevel.size());
+        }
+        lastUniqueConfigs = forward.size() + backward.size() - (meet != null ? 1 : 0); // The meet is in both maps
+
+        List<Configuration> path = null;
+        if (meet != null) {
+            // Construct the path, walking back to the start then forward to the goal
+            path = new LinkedList<>();
+            for (Configuration cur = meet; cur != null; cur = forward.get(cur))
+                path.add(0, cur);
+            for (Configuration cur = backward.get(meet); cur != null; cur = backward.get(cur))
+                path.add(cur);
+        }
+        return path;
+    }
+
+    /**
+     * Expand one whole level of one side of a bidirectional search.
+     * Stops as soon as a neighbor has already been visited by the other side.
+     *
+     * @param level the current level of this side
+     * @param nextLevel collects the configurations first reached by this level
+     * @param visited the predecessor map of this side
+     * @param other the predecessor map of the other side
+     * @param neighbors gives the neighbors of a configuration in the direction of this side
+     * @param expanded holds the configurations expanded so far by both sides, which is updated
+     * @return the configuration where the two sides met, or null if they have not met yet
+     */
+    private Configuration expandSide(List<Configuration> level, List<Configuration> nextLevel,
+                                     Map<Configuration, Configuration> visited, Map<Configuration, Configuration> other,
+                                     Function<Configuration, Collection<Configuration>> neighbors, int[] expanded){
+        for (Configuration curConfig : level){
+            checkIn(++expanded[0], level.size() + nextLevel.size());
+            for (Configuration nbr : neighbors.apply(curConfig)){
+                lastTotalConfigs++;
+                if (!visited.containsKey(nbr)){
+                    visited.put(nbr, curConfig);
+                    if (other.containsKey(nbr))
+                        return nbr; // The sides have met
+                    nextLevel.add(nbr);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration, expanding each level of the search on the common pool.
+     *
+     * @param start the beginning configuration
+     * @return the shortest path for solving the given Configuration.
+     * @see #buildPathParallelBFS(Configuration, ForkJoinPool)
+     */
+    public List<Configuration> buildPathParallelBFS(Configuration start){
+        return buildPathParallelBFS(start, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Return the shortest path for solving a Configuration, searching one level (frontier) at a time and
+     * expanding every configuration in the level on the given pool.
+     * New neighbors are claimed by the earliest configuration in the level which reached them, so the next level
+     * has the same order as the queue of buildPathBFS. Configurations with an encoding are told apart by it, like
+     * the serial search does, so symmetric configurations sharing an encoding are only visited once. Because of
+     * this, the path length and the total and unique config counts are the same as the serial search.
+     * Configurations must be safe to call isSolution, getNeighbors and encode on from multiple threads.
+     *
+     * @param start the beginning configuration
+     * @param pool the pool to expand the levels on
+     * @return the shortest path for solving the given Configuration.
+     */
+    public List<Configuration> buildPathParallelBFS(Configuration start, ForkJoinPool pool){
+        int width = start.getEncodedLength();
+        Function<Configuration, Object> key = width == 0 ? config -> config : config -> {
+            long[] code = new long[width];
+            config.encode(code, 0);
+            return new EncodedKey(code);
+        };
+        // The start maps to itself since the concurrent map can't hold null values
+        Map<Object, Configuration> predecessor = new ConcurrentHashMap<>();
+        predecessor.put(key.apply(start), start);
+        List<Configuration> level = List.of(start);
+        Configuration solution = null;
+
+        lastTotalConfigs = lastUniqueConfigs = lastPeakFrontier = 1;
+        while (solution == null && !level.isEmpty()){
+            checkIn(level.size());
+            List<Configuration> curLevel = level;
+            boolean[] solved = new boolean[curLevel.size()];
+            pool.invoke(new LevelTask(0, curLevel.size(), i -> solved[i] = curLevel.get(i).isSolution()));
+
+            int toExpand = 0;
+            while (toExpand < solved.length && !solved[toExpand]) toExpand++;
+            if (toExpand < solved.length) solution = curLevel.get(toExpand);
+            // The serial search still expands the configs queued before the solution, so we do as well.
+            level = expandLevel(curLevel, toExpand, predecessor, key, pool);
+            noteFrontier(level.size());
+        }
+
+        List<Configuration> path = null;
+        if (solution != null) {
+            // Construct the path
+            path = new LinkedList<>();
+            Configuration cur = solution;
+            while (cur != start){
+                path.add(0, cur); // Reverse direction start -> finish
+                cur = predecessor.get(key.apply(cur));
+            }
+            path.add(0, start);
+        }
+        return path;
+    }
+
+    /**
+     * Expand the first configurations of a level in parallel and return the next level in queue order.
+     * Updates the total and unique config counts and adds the new configurations to the predecessor map.
+     *
+     * @param level the current level of the search
+     * @param count the number of configurations at the front of the level to expand
+     * @param predecessor the concurrent visited/predecessor map of the search, by the key of each configuration
+     * @param key gives the key configurations are told apart by
+     * @param pool the pool to expand the level on
+     * @return the configurations first reached by this level, in the order the serial search would queue them
+     */
+    private List<Configuration> expandLevel(List<Configuration> level, int count, Map<Object, Configuration> predecessor,
+                                            Function<Configuration, Object> key, ForkJoinPool pool){
+        Configuration[][] neighbors = new Configuration[count][];
+        Object[][] keys = new Object[count][];
+        Map<Object, Integer> owners = new ConcurrentHashMap<>();
+        int[] generated = new int[count];
+
+        // Generate neighbors, drop the ones from earlier levels and find the earliest config to reach the rest
+        pool.invoke(new LevelTask(0, count, i -> {
+            Collection<Configuration> nbrs = level.get(i).getNeighbors();
+            generated[i] = nbrs.size();
+            List<Configuration> fresh = new ArrayList<>(nbrs.size());
+            List<Object> freshKeys = new ArrayList<>(nbrs.size());
+            for (Configuration nbr : nbrs){
+                Object nbrKey = key.apply(nbr);
+                if (predecessor.containsKey(nbrKey)) continue;
+                fresh.add(nbr);
+                freshKeys.add(nbrKey);
+                owners.merge(nbrKey, i, Math::min);
+            }
+            neighbors[i] = fresh.toArray(Configuration[]::new);
+            keys[i] = freshKeys.toArray();
+        }));
+
+        // Only the owner may claim a neighbor, and only its first occurrence makes it into the map
+        pool.invoke(new LevelTask(0, count, i -> {
+            List<Configuration> claimed = new ArrayList<>(neighbors[i].length);
+            for (int j = 0; j < neighbors[i].length; j++)
+                if (owners.get(keys[i][j]) == i && predecessor.putIfAbsent(keys[i][j], level.get(i)) == null)
+                    claimed.add(neighbors[i][j]);
+            neighbors[i] = claimed.toArray(Configuration[]::new);
+        }));
+
+        List<Configuration> nextLevel = new ArrayList<>();
+        for (int i = 0; i < count; i++){
+            nextLevel.addAll(Arrays.asList(neighbors[i]));
+            lastTotalConfigs += generated[i];
+        }
+        lastUniqueConfigs += nextLevel.size();
+        return nextLevel;
+    }
+
     /** @return the last total number of configs of the Solver */
     public int getLastTotalConfigs(){
         return lastTotalConfigs;
@@ -59,4 +912,62 @@ public class Solver{
     public int getLastUniqueConfigs(){
         return lastUniqueConfigs;
     }
+
+    /** @return the most configs waiting to be expanded at once during the last search of the Solver */
+    public int getLastPeakFrontier(){
+        return lastPeakFrontier;
+    }
+
+    /**
+     * The encoding of a configuration, compared by value so it can be the key of a map.
+     * @param code the encoding
+     */
+    private record EncodedKey(long[] code) {
+        @Override
+        public boolean equals(Object other){
+            return other instanceof EncodedKey casted && Arrays.equals(code, casted.code);
+        }
+
+        @Override
+        public int hashCode(){
+            return Arrays.hashCode(code);
+        }
+    }
+
+    /**
+     * Task which runs an action for every index of a level, splitting the indexes in half until they are
+     * small enough to run directly.
+     */
+    private static class LevelTask extends RecursiveAction {
+        /** Tasks are never serialized, but RecursiveAction is Serializable */
+        private static final long serialVersionUID = 1L;
+
+        /** The range of indexes [from, to) this task covers */
+        private final int from, to;
+
+        /** The action to run for each index */
+        private final IntConsumer action;
+
+        /**
+         * Create a task over the given range of indexes.
+         * @param from the first index, inclusive
+         * @param to the last index, exclusive
+         * @param action the action to run for each index
+         */
+        private LevelTask(int from, int to, IntConsumer action){
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute(){
+            if (to - from <= PARALLEL_THRESHOLD){
+                for (int i = from; i < to; i++) action.accept(i);
+            }else{
+                int mid = (from + to) >>> 1;
+                invokeAll(new LevelTask(from, mid, action), new LevelTask(mid, to, action));
+            }
+        }
+    }
 }
@@ -0,0 +1,152 @@
+package puzzles.common.solver;
+
+import java.util.Arrays;
+
+/**
+ * An insertion ordered set of encoded configurations, where each entry also remembers the entry it was reached from.
+ * Every encoding is the same number of longs, and they are stored back to back in one long array. Lookups go
+ * through an open addressing (linear probing) table of entry indexes, so no objects are kept per configuration.
+ * Since entries are never removed or moved, the entries themselves double as the BFS queue.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+final class StateTable {
+    /** Value of an empty slot in the table */
+    private static final int EMPTY = -1;
+
+    /** The starting number of entries the table holds before growing */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /** The number of longs in each encoding */
+    private final int width;
+
+    /** The encodings of the entries, back to back */
+    private long[] keys;
+
+    /** The entry each entry was reached from, or -1 for the first entry */
+    private int[] parents;
+
+    /** The open addressing table, holding entry indexes or EMPTY */
+    private int[] slots;
+
+    /** The number of entries in the table */
+    private int size;
+
+    /**
+     * Create an empty table for encodings of the given width.
+     * @param width the number of longs in each encoding
+     */
+    StateTable(int width){
+        this.width = width;
+        keys = new long[INITIAL_CAPACITY * width];
+        parents = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY * 2];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    /** @return the number of entries in the table */
+    int size(){
+        return size;
+    }
+
+    /**
+     * @param entry the index of the entry
+     * @return the entry the given entry was reached from, or -1 if it is the first entry
+     */
+    int getParent(int entry){
+        return parents[entry];
+    }
+
+    /**
+     * Change the entry an entry was reached from, when a shorter way to it has been found.
+     * @param entry the index of the entry
+     * @param parent the new entry the entry was reached from
+     */
+    void setParent(int entry, int parent){
+        parents[entry] = parent;
+    }
+
+    /**
+     * Check if an entry's encoding equals the given encoding.
+     * @param entry the index of the entry
+     * @param code the encoding to compare against
+     * @return true: the entry has the same encoding
+     */
+    boolean keyEquals(int entry, long[] code){
+        return Arrays.equals(keys, entry * width, entry * width + width, code, 0, width);
+    }
+
+    /**
+     * Copy the encoding of the entry into the given array.
+     * @param entry the index of the entry
+     * @param dest the array to copy the encoding to, starting at index 0
+     */
+    void getKey(int entry, long[] dest){
+        System.arraycopy(keys, entry * width, dest, 0, width);
+    }
+
+    /**
+     * Find the entry with the given encoding.
+     * @param code the encoding to find
+     * @return the index of the entry, or -1 if the encoding isn't in the table
+     */
+    int indexOf(long[] code){
+        int mask = slots.length - 1;
+        for (int slot = hash(code) & mask, entry; (entry = slots[slot]) != EMPTY; slot = (slot + 1) & mask)
+            if (keyEquals(entry, code))
+                return entry;
+        return -1;
+    }
+
+    /**
+     * Add the encoding as a new entry, unless it's already in the table.
+     * @param code the encoding to add
+     * @param parent the entry the encoding was reached from
+     * @return the index of the new entry, or -1 if the encoding was already in the table
+     */
+    int add(long[] code, int parent){
+        int mask = slots.length - 1;
+        int slot = hash(code) & mask;
+        for (int entry; (entry = slots[slot]) != EMPTY; slot = (slot + 1) & mask)
+            if (keyEquals(entry, code))
+                return -1;
+
+        if (size == parents.length){
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            parents = Arrays.copyOf(parents, parents.length * 2);
+        }
+        System.arraycopy(code, 0, keys, size * width, width);
+        parents[size] = parent;
+        slots[slot] = size;
+        if (++size * 2 > slots.length) rehash(); // Keep the table at most half full
+        return size - 1;
+    }
+
+    /** Double the open addressing table and put every entry back into it */
+    private void rehash(){
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        long[] code = new long[width];
+        for (int entry = 0; entry < size; entry++){
+            getKey(entry, code);
+            int slot = hash(code) & mask;
+            while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+            slots[slot] = entry;
+        }
+    }
+
+    /**
+     * Mix the longs of an encoding into a well spread hash.
+     * @param code the encoding to hash
+     * @return the hash of the encoding
+     */
+    private int hash(long[] code){
+        long h = 0;
+        for (int i = 0; i < width; i++){
+            h = (h ^ code[i]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 32;
+        }
+        return (int) (h ^ (h >>> 29));
+    }
+}
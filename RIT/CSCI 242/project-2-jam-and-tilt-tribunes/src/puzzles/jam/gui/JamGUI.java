@@ -16,6 +16,7 @@ import puzzles.jam.model.Car;
 import puzzles.jam.model.JamModel;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.stage.Stage;
@@ -81,7 +82,7 @@ public class JamGUI extends Application  implements Observer<JamModel, String>
         SELECTED_CAR_EFFECT.setSaturation(1);
         model = new JamModel();
         model.addObserver(this);
-        model.loadFromFile(lastFileLoaded);
+        loadFile(lastFileLoaded);
     }
 
     @Override
@@ -105,14 +106,18 @@ public class JamGUI extends Application  implements Observer<JamModel, String>
 
         Button resetBtn = new Button("Reset");
         resetBtn.setFont(MAIN_UI_FONT);
-        resetBtn.setOnAction(event -> model.loadFromFile(lastFileLoaded));
+        resetBtn.setOnAction(event -> loadFile(lastFileLoaded));
 
         Button hintBtn = new Button("Hint");
         hintBtn.setFont(MAIN_UI_FONT);
-        hintBtn.setOnAction(event -> model.announceHint());
+        hintBtn.setOnAction(event -> model.announceHintAsync(Platform::runLater));
+
+        Button cancelBtn = new Button("Cancel");
+        cancelBtn.setFont(MAIN_UI_FONT);
+        cancelBtn.setOnAction(event -> model.cancelHint());
 
         bottomPane.setAlignment(Pos.CENTER);
-        bottomPane.getChildren().addAll(loadBtn, resetBtn, hintBtn);
+        bottomPane.getChildren().addAll(loadBtn, resetBtn, hintBtn, cancelBtn);
 
         mainBPain.setBottom(bottomPane);
 
@@ -248,7 +253,16 @@ public class JamGUI extends Application  implements Observer<JamModel, String>
         //open up a window for the user to interact with and load the file.
         File chosen = fileChooser.showOpenDialog(currentStage);
         if (chosen != null)
-            model.loadFromFile(lastFileLoaded = chosen.getAbsolutePath());
+            loadFile(lastFileLoaded = chosen.getAbsolutePath());
+    }
+
+    /**
+     * Print the name of a puzzle file and load it.
+     * @param filePath the path of the file to load
+     */
+    private void loadFile(String filePath){
+        System.out.println("File: " + filePath);
+        model.loadFromFile(filePath);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,214 @@
+package puzzles.jam.model;
+
+import puzzles.common.Coordinate;
+
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The parts of a jam puzzle which never change: the board dimensions, and the ID, orientation, length and lane of
+ * every car. It is shared by every JamConfig of the same puzzle, so a configuration only has to store where each
+ * car is along its lane.
+ * Cars are referred to by their index, which is the order they were read in. The cells of the board are the bits
+ * of a long, numbered row by row, so a board can have at most 64 cells.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+final class JamBoard {
+    /** The most cells a board can have */
+    static final int MAX_CELLS = Long.SIZE;
+
+    /** The ID of the solver car */
+    private static final String SOLVER_ID = "X";
+
+    /** The dimensions of the board (rows, columns) */
+    private final Coordinate BOARD_DIMENSIONS;
+
+    /** The IDs of the cars */
+    private final String[] ids;
+
+    /** Whether each car is horizontal */
+    private final boolean[] horizontal;
+
+    /** The number of cells each car takes up */
+    private final int[] lengths;
+
+    /** The row of each horizontal car, or the column of each vertical car */
+    private final int[] lanes;
+
+    /** The cells a car takes up at each of its positions, indexed by [car][position] */
+    private final long[][] masks;
+
+    /** The index of each car, by its ID */
+    private final HashMap<String, Integer> indexes = new HashMap<>();
+
+    /** The index of the solver car */
+    private final int solver;
+
+    /** The number of bits needed to hold any position along a lane */
+    private final int positionBits;
+
+    /** How the moves of a solution are counted */
+    private final JamConfig.MoveMode moveMode;
+
+    /**
+     * Create the board from the cars as they are placed at the start of the puzzle.
+     * @param boardDimensions the dimensions of the board
+     * @param cars the cars of the puzzle, in the order they should be indexed
+     * @param moveMode how the moves of a solution are counted
+     * @throws IllegalArgumentException if the board has too many cells or there is no solver car
+     */
+    JamBoard(Coordinate boardDimensions, List<Car> cars, JamConfig.MoveMode moveMode){
+        if (boardDimensions.getRow() * boardDimensions.getColumn() > MAX_CELLS)
+            throw new IllegalArgumentException("Boards can have at most " + MAX_CELLS + " cells");
+        BOARD_DIMENSIONS = boardDimensions;
+        this.moveMode = moveMode;
+        ids = new String[cars.size()];
+        horizontal = new boolean[cars.size()];
+        lengths = new int[cars.size()];
+        lanes = new int[cars.size()];
+        masks = new long[cars.size()][];
+        for (int car = 0; car < cars.size(); car++){
+            Car cur = cars.get(car);
+            ids[car] = cur.getID();
+            horizontal[car] = cur.isHorizontal();
+            lengths[car] = horizontal[car] ?
+                    cur.getFrontCoordinate().getColumn() - cur.getBackCoordinate().getColumn() + 1 :
+                    cur.getFrontCoordinate().getRow() - cur.getBackCoordinate().getRow() + 1;
+            lanes[car] = horizontal[car] ? cur.getBackCoordinate().getRow() : cur.getBackCoordinate().getColumn();
+            masks[car] = new long[getLaneLength(car) - lengths[car] + 1];
+            for (int position = 0; position < masks[car].length; position++)
+                for (int i = 0; i < lengths[car]; i++)
+                    masks[car][position] |= getCellBit(car, position + i);
+            indexes.put(ids[car], car);
+        }
+        Integer solverIndex = indexes.get(SOLVER_ID);
+        if (solverIndex == null)
+            throw new IllegalArgumentException("There is no car with the ID " + SOLVER_ID);
+        solver = solverIndex;
+        positionBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(
+                Math.max(boardDimensions.getRow(), boardDimensions.getColumn()) - 1));
+    }
+
+    /** @return the dimensions of the board */
+    Coordinate getDimensions(){
+        return BOARD_DIMENSIONS;
+    }
+
+    /** @return how the moves of a solution are counted */
+    JamConfig.MoveMode getMoveMode(){
+        return moveMode;
+    }
+
+    /** @return the number of cars on the board */
+    int getCarCount(){
+        return ids.length;
+    }
+
+    /**
+     * @param id the ID of a car
+     * @return the index of the car, or -1 if there is no car with the ID
+     */
+    int indexOf(String id){
+        return indexes.getOrDefault(id, -1);
+    }
+
+    /** @return the number of bits needed to hold any position along a lane */
+    int getPositionBits(){
+        return positionBits;
+    }
+
+    /** @return the length of the car */
+    int getLength(int car){
+        return lengths[car];
+    }
+
+    /** @return true: the car moves along a row */
+    boolean isHorizontal(int car){
+        return horizontal[car];
+    }
+
+    /** @return the number of cells in the row or column the car moves along */
+    int getLaneLength(int car){
+        return horizontal[car] ? BOARD_DIMENSIONS.getColumn() : BOARD_DIMENSIONS.getRow();
+    }
+
+    /**
+     * @param car the index of the car
+     * @param position a position along the car's lane, which may be off the end of the car's positions
+     * @return the bit of the cell at the position along the car's lane
+     */
+    long getCellBit(int car, int position){
+        return 1L << (horizontal[car] ?
+                getCell(lanes[car], position) : getCell(position, lanes[car]));
+    }
+
+    /**
+     * @param car the index of the car
+     * @param position the position of the car's back along its lane
+     * @return the cells the car takes up at the position
+     */
+    long getMask(int car, int position){
+        return masks[car][position];
+    }
+
+    /**
+     * @param row the row of the cell
+     * @param column the column of the cell
+     * @return the number of the cell's bit
+     */
+    int getCell(int row, int column){
+        return row * BOARD_DIMENSIONS.getColumn() + column;
+    }
+
+    /**
+     * @param car the index of the car
+     * @param back the back coordinate of the car
+     * @return the position of the car along its lane
+     */
+    int positionOf(int car, Coordinate back){
+        return horizontal[car] ? back.getColumn() : back.getRow();
+    }
+
+    /** @return the index of the solver car */
+    int getSolver(){
+        return solver;
+    }
+
+    /**
+     * @param positions the positions of every car
+     * @return the column of the front of the solver car
+     */
+    int getSolverFrontColumn(byte[] positions){
+        return horizontal[solver] ? positions[solver] + lengths[solver] - 1 : lanes[solver];
+    }
+
+    /**
+     * @param positions the positions of every car
+     * @return true: the solver car is at the last column
+     */
+    boolean isSolved(byte[] positions){
+        return getSolverFrontColumn(positions) == BOARD_DIMENSIONS.getColumn() - 1;
+    }
+
+    /**
+     * Create a car object for the car at the given position.
+     * @param car the index of the car
+     * @param position the position of the car's back along its lane
+     * @return a new car at the position
+     */
+    Car toCar(int car, int position){
+        int end = position + lengths[car] - 1;
+        return horizontal[car] ?
+                new Car(ids[car], new Coordinate(lanes[car], position), new Coordinate(lanes[car], end)) :
+                new Car(ids[car], new Coordinate(position, lanes[car]), new Coordinate(end, lanes[car]));
+    }
+
+    /**
+     * @param car the index of the car
+     * @return the ID of the car
+     */
+    String getID(int car){
+        return ids[car];
+    }
+}
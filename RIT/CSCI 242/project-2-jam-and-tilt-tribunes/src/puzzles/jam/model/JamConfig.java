@@ -11,166 +11,172 @@ import java.util.*;
 /**
  * Configuration for solving the jam puzzle.
  * There should not be multiple cars with the same ID.
+ * The configuration only stores the position of each car along its lane, with one byte per car, and which
+ * cells of the board are taken as the bits of a long. Everything else about the cars is in the shared JamBoard,
+ * and Car objects are only created when asked for.
  *
  * @author Ethan Hartman (theeman05)
  */
 public class JamConfig implements Configuration {
-    /** The ID of the solver car */
-    private static final String SOLVER_ID = "X";
+    /** How the solver counts the moves of a solution */
+    public enum MoveMode {
+        /** Every cell a car slides is one move */
+        CELL_STEPS,
+        /** A car sliding any number of cells at once is one move, like standard Rush Hour solutions */
+        CAR_MOVES
+    }
 
     /** The character for an empty space */
     private static final char EMPTY_SPACE = '.';
 
-    /** The dimensions of the board (rows, columns) */
-    private final Coordinate BOARD_DIMENSIONS;
+    /** Value of lastMoved when no car has been moved */
+    private static final int NONE = -1;
+
+    /** The parts of the puzzle which never change */
+    private final JamBoard board;
 
-    /** The map of cars on the board. We expect the key to be the ID of the car. */
-    private final HashMap<String, Car> cars;
+    /** The position of the back of each car along its lane, indexed by car */
+    private final byte[] positions;
 
-    /** The characters of the visual board */
-    private final String[][] visualBoard;
+    /** The cells taken by a car, as the bits of the board */
+    private long occupied;
 
-    /** The car which was moved last */
-    private Car lastMoved;
+    /** The index of the car which was moved last */
+    private int lastMoved;
 
     /**
      * Default constructor which creates a JamConfig by reading the given file.
+     * Neighbors move a car by one cell.
      * @param filePath the path to the file we want to read.
-     * @throws IOException could not read the given file.
+     * @throws IOException could not read the given file, or the board in it isn't supported.
      */
     public JamConfig(String filePath) throws IOException {
-        System.out.println("File: " + filePath);
-        cars = new HashMap<>();
+        this(filePath, MoveMode.CELL_STEPS);
+    }
+
+    /**
+     * Creates a JamConfig by reading the given file, with neighbors based on the given move mode.
+     * @param filePath the path to the file we want to read.
+     * @param moveMode how the moves of a solution are counted.
+     * @throws IOException could not read the given file, or the board in it isn't supported.
+     */
+    public JamConfig(String filePath, MoveMode moveMode) throws IOException {
+        List<Car> cars = new ArrayList<>();
+        Coordinate boardDimensions;
         try (BufferedReader in = new BufferedReader(new FileReader(filePath))){
-            Car curCar;
             int numCars;
             String[] fields = in.readLine().split("\\s+");
-            BOARD_DIMENSIONS = new Coordinate(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
-            visualBoard = new String[BOARD_DIMENSIONS.getRow()][BOARD_DIMENSIONS.getColumn()];
+            boardDimensions = new Coordinate(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]));
             numCars = Integer.parseInt(in.readLine().strip());
             for (int i = 0; i < numCars; i++){ // Iterate through cars
                 fields = in.readLine().split("\\s+");
-                curCar = new Car(fields[0], new Coordinate(fields[1], fields[2]), new Coordinate(fields[3], fields[4]));
-                cars.put(curCar.getID(), curCar);
-                visualizeCar(curCar);
+                cars.add(new Car(fields[0], new Coordinate(fields[1], fields[2]), new Coordinate(fields[3], fields[4])));
             }
         }
-    }
-
-    /**
-     * Creates a new JamConfig given a list of cars and a board dimension.
-     * @param cars list of cars included in the config.
-     * @param boardDimensions dimensions of the board.
-     * @param lastMoved the car moved last
-     */
-    private JamConfig(HashMap<String, Car> cars, Coordinate boardDimensions, Car lastMoved){
-        this.cars = cars;
-        this.lastMoved = lastMoved;
-        BOARD_DIMENSIONS = boardDimensions;
-        visualBoard = new String[BOARD_DIMENSIONS.getRow()][BOARD_DIMENSIONS.getColumn()];
-        for (Map.Entry<String, Car> entry : cars.entrySet()) visualizeCar(entry.getValue());
-    }
 
-    /**
-     * Adds the given car to the visual list.
-     * @param car to add to the visual list
-     */
-    private void visualizeCar(Car car){
-        for (int r = car.getBackCoordinate().getRow(); r <= car.getFrontCoordinate().getRow(); r++)
-            for (int c = car.getBackCoordinate().getColumn(); c <= car.getFrontCoordinate().getColumn(); c++)
-                visualBoard[r][c] = car.getID();
+        try {
+            board = new JamBoard(boardDimensions, cars, moveMode);
+        }catch (IllegalArgumentException e){
+            throw new IOException(e.getMessage(), e);
+        }
+        positions = new byte[cars.size()];
+        for (int car = 0; car < positions.length; car++){
+            positions[car] = (byte) board.positionOf(car, cars.get(car).getBackCoordinate());
+            occupied |= board.getMask(car, positions[car]);
+        }
+        lastMoved = NONE;
     }
 
     /**
-     * Removes a car from the visual list.
-     * @param car to remove from the visual list
+     * Creates a new JamConfig of the given board with the cars at the given positions.
+     * @param board the board of the puzzle.
+     * @param positions the position of each car, which is not copied.
+     * @param occupied the cells taken by the cars.
+     * @param lastMoved the index of the car moved last
      */
-    private void unVisualizeCar(Car car){
-        for (int r = car.getBackCoordinate().getRow(); r <= car.getFrontCoordinate().getRow(); r++)
-            for (int c = car.getBackCoordinate().getColumn(); c <= car.getFrontCoordinate().getColumn(); c++)
-                visualBoard[r][c] = null;
+    private JamConfig(JamBoard board, byte[] positions, long occupied, int lastMoved){
+        this.board = board;
+        this.positions = positions;
+        this.occupied = occupied;
+        this.lastMoved = lastMoved;
     }
 
     /** @return true: the given coordinate is off the board */
     private boolean isOffBoard(Coordinate coordinate){
-        return coordinate.getRow() < 0 || coordinate.getRow() >= BOARD_DIMENSIONS.getRow() ||
-                coordinate.getColumn() < 0 || coordinate.getColumn() >= BOARD_DIMENSIONS.getColumn();
+        return coordinate.getRow() < 0 || coordinate.getRow() >= board.getDimensions().getRow() ||
+                coordinate.getColumn() < 0 || coordinate.getColumn() >= board.getDimensions().getColumn();
     }
 
     /**
-     * Returns a new config with the given car shifted the given amount.
-     * If the shifted car is out of bounds, null is returned.
-     * @param car to be shifted.
-     * @param moveAmount to shift the car by.
-     * @return a new configuration with the car shifted or null if the car couldn't be shifted.
+     * Returns a new config with the given car slid the given amount.
+     * Assumes the car can be slid there.
+     * @param car the index of the car to slide.
+     * @param moveAmount to slide the car by.
+     * @return a new configuration with the car slid.
      */
-    private Configuration newShift(Car car, int moveAmount){
-        Car newCar = new Car(car, moveAmount);
-        if (newCar.isInBounds(BOARD_DIMENSIONS) &&
-                (moveAmount > 0 || visualBoard[newCar.getBackCoordinate().getRow()][newCar.getBackCoordinate().getColumn()] == null) &&
-                (moveAmount < 0 || visualBoard[newCar.getFrontCoordinate().getRow()][newCar.getFrontCoordinate().getColumn()] == null)){
-            // Checks if the car is in bounds, then if there's already a car in our new position
-            // Copy and replace the old car with the new, moved car
-            HashMap<String, Car> newCarList = new HashMap<>(cars);
-            newCarList.put(newCar.getID(), newCar);
-            return new JamConfig(newCarList, BOARD_DIMENSIONS, newCar);
-        }
-        return null;
+    private JamConfig newShift(int car, int moveAmount){
+        byte[] newPositions = positions.clone();
+        newPositions[car] += moveAmount;
+        return new JamConfig(board, newPositions,
+                occupied ^ board.getMask(car, positions[car]) ^ board.getMask(car, newPositions[car]), car);
     }
 
     /**
-     * Shifts the given car to the given coordinate and updates the visual list of cars.
+     * Shifts the given car to the given coordinate.
      * @param car to move to the coordinate.
      * @param to  coordinate to move the car to.
      * @return true: Car shifted successfully
      */
     public boolean shiftCar(Car car, Coordinate to){
         if (car == null || isOffBoard(to)) return false;
-        int moveAmount = car.getMoveAmountTo(to);
+        int index = board.indexOf(car.getID());
+        if (index == NONE) return false;
+        int position = positions[index];
+        int moveAmount = board.toCar(index, position).getMoveAmountTo(to);
         if (moveAmount == 0) return false;
 
-        String match;
-        int startRow, startCol;
         // Verify there are no cars leading up to the move location
-        if (moveAmount > 0) {
-            startRow = car.getFrontCoordinate().getRow();
-            startCol = car.getFrontCoordinate().getColumn();
-            for (int i = 1; i < moveAmount + 1; i++) {
-                match = car.isHorizontal() ? visualBoard[startRow][startCol + i] : visualBoard[startRow + i][startCol];
-                if (match != null && !match.equals(car.getID()))
-                    return false; // there's another car here
-            }
-        }else{
-            startRow = car.getBackCoordinate().getRow();
-            startCol = car.getBackCoordinate().getColumn();
-            for (int i = 1; i < Math.abs(moveAmount) + 1; i++) {
-                match = car.isHorizontal() ? visualBoard[startRow][startCol - i] : visualBoard[startRow - i][startCol];
-                if (match != null && !match.equals(car.getID()))
-                    return false; // there's another car here
-            }
-        }
+        long others = occupied ^ board.getMask(index, position);
+        int step = Integer.signum(moveAmount);
+        for (int i = step; i != moveAmount + step; i += step)
+            if ((others & board.getMask(index, position + i)) != 0)
+                return false; // there's another car here
 
-        unVisualizeCar(car);
-        car.moveBy(moveAmount);
-        visualizeCar(car);
-        lastMoved = car;
+        positions[index] += moveAmount;
+        occupied = others | board.getMask(index, positions[index]);
+        lastMoved = index;
         return true;
     }
 
     /** Returns the car at the given coordinate. Will be null if there is no car or the coordinates are out of bounds */
     public Car getCarAt(Coordinate at){
         if (isOffBoard(at)) return null;
-        return cars.get(visualBoard[at.getRow()][at.getColumn()]);
+        long cell = 1L << board.getCell(at.getRow(), at.getColumn());
+        if ((occupied & cell) != 0)
+            for (int car = 0; car < positions.length; car++)
+                if ((board.getMask(car, positions[car]) & cell) != 0)
+                    return board.toCar(car, positions[car]);
+        return null;
     }
 
     /** @return the last moved car */
     public Car getLastMoved(){
-        return lastMoved;
+        return lastMoved == NONE ? null : board.toCar(lastMoved, positions[lastMoved]);
+    }
+
+    /** @return the parts of the puzzle which never change */
+    JamBoard getBoard(){
+        return board;
+    }
+
+    /** @return the position of each car along its lane, which must not be changed */
+    byte[] getPositions(){
+        return positions;
     }
 
     /** @return the dimensions of the board */
     public Coordinate getDimensions(){
-        return BOARD_DIMENSIONS;
+        return board.getDimensions();
     }
 
     /**
@@ -178,45 +184,100 @@ public class JamConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return cars.get(SOLVER_ID).getFrontCoordinate().getColumn() == BOARD_DIMENSIONS.getColumn() - 1;
+        return board.isSolved(positions);
     }
 
     /**
-     * Neighbors will be all cars moved forward and backward (if possible)
+     * Neighbors will be all cars moved forward and backward (if possible).
+     * A car can move while the cells past its front or back are on the board and not taken. When counting
+     * cell steps, cars only move one cell; when counting car moves, every distance a car can slide is a neighbor.
      * @return the neighbors of the current configuration.
      */
     @Override
     public Collection<Configuration> getNeighbors() {
-        Collection<Configuration> neighbors = new LinkedList<>();
-        Configuration testConfig;
-        for (Map.Entry<String, Car> entry : cars.entrySet()){
-            if ((testConfig = newShift(entry.getValue(), 1)) != null)
-                neighbors.add(testConfig);
-            if ((testConfig = newShift(entry.getValue(), -1)) != null)
-                neighbors.add(testConfig);
+        Collection<Configuration> neighbors = new ArrayList<>(positions.length * 2);
+        for (int car = 0; car < positions.length; car++){
+            int position = positions[car];
+            int front = position + board.getLength(car) - 1;
+            int reach = board.getMoveMode() == MoveMode.CAR_MOVES ? board.getLaneLength(car) : 1;
+            for (int i = 1; i <= reach && front + i < board.getLaneLength(car) &&
+                    (occupied & board.getCellBit(car, front + i)) == 0; i++)
+                neighbors.add(newShift(car, i));
+            for (int i = 1; i <= reach && position - i >= 0 &&
+                    (occupied & board.getCellBit(car, position - i)) == 0; i++)
+                neighbors.add(newShift(car, -i));
         }
         return neighbors;
     }
 
+    /** @return the number of cars which fit in one long of the encoding */
+    private int carsPerLong(){
+        return Long.SIZE / board.getPositionBits();
+    }
+
+    @Override
+    public int getEncodedLength() {
+        return (positions.length + carsPerLong() - 1) / carsPerLong();
+    }
+
+    /**
+     * Packs the position of each car along its lane, with just enough bits per car for the largest lane.
+     */
+    @Override
+    public void encode(long[] dest, int offset) {
+        int bits = board.getPositionBits(), perLong = carsPerLong();
+        Arrays.fill(dest, offset, offset + getEncodedLength(), 0);
+        for (int car = 0; car < positions.length; car++)
+            dest[offset + car / perLong] |= (long) positions[car] << (car % perLong * bits);
+    }
+
+    /**
+     * Rebuilds the positions of the cars from their encoding.
+     * The decoded config has no last moved car.
+     */
+    @Override
+    public Configuration decode(long[] src, int offset) {
+        int bits = board.getPositionBits(), perLong = carsPerLong();
+        long mask = (1L << bits) - 1;
+        byte[] newPositions = new byte[positions.length];
+        long newOccupied = 0;
+        for (int car = 0; car < positions.length; car++){
+            newPositions[car] = (byte) (src[offset + car / perLong] >>> (car % perLong * bits) & mask);
+            newOccupied |= board.getMask(car, newPositions[car]);
+        }
+        return new JamConfig(board, newPositions, newOccupied, NONE);
+    }
+
     @Override
     public boolean equals(Object other) {
         if (this == other) return true;
         if (other instanceof JamConfig compare)
-            return cars.equals(compare.cars);
+            return Arrays.equals(positions, compare.positions);
         return false;
     }
 
     @Override
     public int hashCode() {
-        return cars.hashCode();
+        return Arrays.hashCode(positions);
     }
 
     @Override
     public String toString() {
+        Coordinate dimensions = board.getDimensions();
+        String[][] visualBoard = new String[dimensions.getRow()][dimensions.getColumn()];
+        for (int car = 0; car < positions.length; car++){
+            Car visual = board.toCar(car, positions[car]);
+            for (int i = 0; i < board.getLength(car); i++){
+                int row = visual.getBackCoordinate().getRow(), column = visual.getBackCoordinate().getColumn();
+                if (visual.isHorizontal()) visualBoard[row][column + i] = visual.getID();
+                else visualBoard[row + i][column] = visual.getID();
+            }
+        }
+
         StringBuilder result = new StringBuilder();
-        for (int r = 0; r < BOARD_DIMENSIONS.getRow(); r++) {
+        for (int r = 0; r < dimensions.getRow(); r++) {
             if (r != 0) result.append("\n");
-            for (int c = 0; c < BOARD_DIMENSIONS.getColumn(); c++) {
+            for (int c = 0; c < dimensions.getColumn(); c++) {
                 if (c != 0) result.append(" ");
                 if (visualBoard[r][c] == null)
                     result.append(EMPTY_SPACE);
@@ -0,0 +1,40 @@
+package puzzles.jam.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Heuristic for the jam puzzle: every car blocking the solver's way to the exit has to move at least once, and
+ * the solver itself has to move the rest of the way to the exit.
+ * When counting cell steps that's one move per cell left, and when counting car moves it's one move. A single move
+ * only ever moves one car, which unblocks at most one blocker or moves the solver, so the estimate is consistent.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class JamHeuristic implements Heuristic<JamConfig> {
+    /**
+     * Estimate the moves left as the blocking cars plus the moves the solver car has left.
+     * @param config the configuration to estimate
+     * @return the estimated number of moves
+     */
+    @Override
+    public int estimate(JamConfig config) {
+        JamBoard board = config.getBoard();
+        byte[] positions = config.getPositions();
+        int solver = board.getSolver();
+        int frontColumn = board.getSolverFrontColumn(positions);
+        int cellsLeft = board.getDimensions().getColumn() - 1 - frontColumn;
+        if (cellsLeft <= 0 || !board.isHorizontal(solver))
+            return 0; // Solved, or the solver isn't horizontal so it can't drive out
+
+        // The cells between the solver and the exit
+        long ahead = 0;
+        for (int position = positions[solver] + board.getLength(solver); position < board.getLaneLength(solver); position++)
+            ahead |= board.getCellBit(solver, position);
+
+        int blockers = 0;
+        for (int car = 0; car < positions.length; car++)
+            if (car != solver && (board.getMask(car, positions[car]) & ahead) != 0)
+                blockers++;
+        return blockers + (board.getMoveMode() == JamConfig.MoveMode.CAR_MOVES ? 1 : cellsLeft);
+    }
+}
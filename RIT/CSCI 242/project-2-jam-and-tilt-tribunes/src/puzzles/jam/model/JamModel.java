@@ -3,9 +3,14 @@ package puzzles.jam.model;
 import puzzles.common.Coordinate;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.HintCache;
+import puzzles.common.solver.SolutionDatabase;
+import puzzles.common.solver.SolveService;
 import puzzles.common.solver.Solver;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -21,9 +26,24 @@ public class JamModel {
     /** Message sent when a board has failed to load. */
     public static final String LOAD_FAILED = "Load Failed";
 
+    /** The directory hint databases are kept in, so later sessions of the same puzzle don't rebuild them */
+    private static final Path HINTS_DIR = Path.of(System.getProperty("java.io.tmpdir"), "jam-hints");
+
     /** The message that will precede a hint. */
     public static final String HINT_PREFIX = "Moved to next step.";
 
+    /** The message sent while a hint is being searched for, which progress is appended to. */
+    public static final String SOLVING_PREFIX = "Searching for a hint...";
+
+    /** The message sent when searching for a hint is cancelled. */
+    public static final String HINT_CANCELLED = "Hint cancelled.";
+
+    /** The message sent when the puzzle can't be solved from the current board. */
+    public static final String NO_SOLUTION = "No solution.";
+
+    /** The message that will precede the reason searching for a hint failed. */
+    public static final String HINT_FAILED_PREFIX = "Hint failed: ";
+
     /** Message sent when a car has been selected */
     public static final String SELECTION_PREFIX = "Selected the car with ID: ";
 
@@ -48,15 +68,65 @@ public class JamModel {
     /** the solver object */
     private final Solver solver = new Solver();
 
+    /** the heuristic the solver uses to find hints */
+    private final JamHeuristic heuristic = new JamHeuristic();
+
+    /** runs hint searches in the background */
+    private final SolveService solveService = new SolveService();
+
+    /** The executor progress of a background search is handed to, or null if no background search was started */
+    private volatile Executor progressCallback;
+
     /** The current configuration */
     private JamConfig currentConfig;
 
+    /** The hints of the loaded puzzle, replaced on every load */
+    private volatile Hints hints;
+
     /** If there's a game going on */
     private boolean gameInSession;
 
     /** The current car selected */
     private Car selectedCar;
 
+    /**
+     * The hint state of one loaded puzzle. Loading a puzzle replaces it instead of clearing it, so a search still
+     * running for the last puzzle keeps its own state and loading never waits for that search to stop.
+     * Searches lock the state they use, since it's only ever used by one search at a time.
+     */
+    private static class Hints {
+        /** The starting board of the puzzle, which identifies its hint database */
+        private final String puzzle;
+
+        /** The file the hint database of the puzzle is kept in */
+        private final Path file;
+
+        /** the last path found by the solver */
+        private final HintCache cache = new HintCache();
+
+        /** The hint database of the puzzle, opened on the first hint */
+        private SolutionDatabase database;
+
+        /**
+         * Create the hint state of a puzzle, which has no hints yet.
+         * @param start the starting configuration of the puzzle
+         */
+        private Hints(JamConfig start){
+            puzzle = start.toString();
+            file = HINTS_DIR.resolve(Integer.toHexString(puzzle.hashCode()) + ".db");
+        }
+    }
+
+    /** Create a model with no puzzle loaded. */
+    public JamModel() {
+        solver.setProgressListener((explored, frontier) -> {
+            Executor callback = progressCallback;
+            if (callback != null)
+                callback.execute(() -> alertObservers(
+                        SOLVING_PREFIX + " explored " + explored + " configs, frontier " + frontier));
+        });
+    }
+
     /**
      * The view calls this to add itself as an observer.
      *
@@ -82,8 +152,10 @@ public class JamModel {
      */
     public boolean loadFromFile(String filePath) {
         try {
+            solveService.cancel();
             selectedCar = null;
             currentConfig = new JamConfig(filePath);
+            hints = new Hints(currentConfig);
             gameInSession = true;
             alertObservers(LOADED);
             checkGameWin();
@@ -146,13 +218,82 @@ public class JamModel {
     /** Update the current configuration and alert observers of our change */
     public void announceHint(){
         if (alertIfGameOver()) return;
+        applyHint(findNextStep(currentConfig, hints));
+    }
+
+    /**
+     * Search for the next step on a background thread, so the view stays responsive.
+     * Progress and the result are handed to the callback executor, like Platform::runLater, which then alerts
+     * observers. The hint is dropped if the player moved while it was being searched for.
+     * @param callback the executor to alert observers through
+     */
+    public void announceHintAsync(Executor callback){
+        if (alertIfGameOver()) return;
+        JamConfig from = snapshot();
+        Hints state = hints;
+        progressCallback = callback;
+        if (solveService.submit(() -> findNextStep(from, state),
+                next -> { if (gameInSession && currentConfig.equals(from)) applyHint(next); },
+                () -> alertObservers(HINT_CANCELLED), e -> alertObservers(HINT_FAILED_PREFIX + e), callback))
+            alertObservers(SOLVING_PREFIX);
+    }
 
-        List<Configuration> path = solver.buildPathBFS(currentConfig);
-        currentConfig = (JamConfig) path.get(1);
+    /** Cancel the hint being searched for in the background, if there is one */
+    public void cancelHint(){
+        solveService.cancel();
+    }
+
+    /**
+     * Find the next step from a configuration.
+     * The next step is looked up in the hint database, which is built the first time a puzzle asks for a hint.
+     * If the database can't be used, the next step comes from the last path found, and is only searched for
+     * when the configuration has left that path.
+     * @param from the configuration to find the next step from
+     * @param state the hints of the puzzle the configuration is from
+     * @return the next step, or null if there is no solution
+     */
+    private JamConfig findNextStep(JamConfig from, Hints state){
+        synchronized (state) {
+            JamConfig next = null;
+            try {
+                if (state.database == null) state.database = SolutionDatabase.open(from, state.puzzle, state.file);
+                next = (JamConfig) state.database.nextStep(from);
+            }catch (IOException e) {
+                // Fall back to searching
+            }
+            if (next == null) next = (JamConfig) state.cache.nextStep(from);
+            if (next == null && state.cache.hasPath())
+                next = (JamConfig) state.cache.rejoin(from, solver, heuristic);
+            if (next == null) {
+                List<Configuration> path = solver.buildPathAStar(from, heuristic);
+                state.cache.seed(path);
+                if (path != null) next = (JamConfig) path.get(1);
+            }
+            return next;
+        }
+    }
+
+    /**
+     * Make the next step the current configuration and alert observers.
+     * @param next the next step, or null if there is no solution
+     */
+    private void applyHint(JamConfig next){
+        if (next == null){
+            alertObservers(NO_SOLUTION);
+            return;
+        }
+        currentConfig = next;
         alertObservers(HINT_PREFIX);
         checkGameWin();
     }
 
+    /** @return a copy of the current configuration, which the player's moves won't change */
+    private JamConfig snapshot(){
+        long[] code = new long[currentConfig.getEncodedLength()];
+        currentConfig.encode(code, 0);
+        return (JamConfig) currentConfig.decode(code, 0);
+    }
+
     /** Return the dimensions of the board */
     public Coordinate getDimensions(){
         return currentConfig.getDimensions();
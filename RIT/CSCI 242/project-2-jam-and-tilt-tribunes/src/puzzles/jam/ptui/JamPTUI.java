@@ -51,7 +51,7 @@ public class JamPTUI implements Observer<JamModel, String> {
         String command;
         boolean selectedCar = false;
 
-        if (!model.loadFromFile(lastLoadedFile))
+        if (!loadFile(lastLoadedFile))
             return;
 
         while (true){
@@ -66,7 +66,7 @@ public class JamPTUI implements Observer<JamModel, String> {
                     break;
                 case "l", "L":
                     if (commandArgs.length == 2)
-                        if (model.loadFromFile(commandArgs[1]))
+                        if (loadFile(commandArgs[1]))
                             lastLoadedFile = commandArgs[1];
                     selectedCar = false;
                     break;
@@ -84,13 +84,23 @@ public class JamPTUI implements Observer<JamModel, String> {
                     System.out.println("Goodbye.");
                     return;
                 case "r", "R":
-                    model.loadFromFile(lastLoadedFile);
+                    loadFile(lastLoadedFile);
                     selectedCar = false;
                     break;
             }
         }
     }
 
+    /**
+     * Print the name of a puzzle file and load it.
+     * @param filePath the path of the file to load
+     * @return true: the file was loaded
+     */
+    private boolean loadFile(String filePath){
+        System.out.println("File: " + filePath);
+        return model.loadFromFile(filePath);
+    }
+
     @Override
     public void update(JamModel jamModel, String message) {
         System.out.println(message);
@@ -13,14 +13,23 @@ import java.util.List;
  * @author Ethan Hartman (theeman05)
  */
 public class Jam {
+    /** Argument for counting a car sliding any number of cells as one move */
+    private static final String CAR_MOVES_ARG = "cars";
+
+    /** Argument for counting every cell a car slides as one move */
+    private static final String CELL_STEPS_ARG = "cells";
+
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java Jam filename");
+        if (args.length < 1 || args.length > 2 ||
+                (args.length == 2 && !args[1].equals(CAR_MOVES_ARG) && !args[1].equals(CELL_STEPS_ARG))) {
+            System.out.println("Usage: java Jam filename [" + CELL_STEPS_ARG + "|" + CAR_MOVES_ARG + "]");
         }else{
             Solver solver = new Solver();
             JamConfig config;
             try {
-                config = new JamConfig(args[0]);
+                System.out.println("File: " + args[0]);
+                config = new JamConfig(args[0], args.length == 2 && args[1].equals(CAR_MOVES_ARG) ?
+                        JamConfig.MoveMode.CAR_MOVES : JamConfig.MoveMode.CELL_STEPS);
                 List<Configuration> path = solver.buildPathBFS(config);
                 System.out.println(config);
                 System.out.println("Total configs: " + solver.getLastTotalConfigs());
@@ -11,18 +11,25 @@ import java.util.List;
  * @author Ethan Hartman (theeman05)
  */
 public class Strings {
+    /** The argument which solves with breadth first search, to check the direct path against it */
+    private static final String BFS_ARG = "bfs";
+
     /**
      * Run an instance of the strings puzzle.
+     * Strings of uppercase letters are solved directly, one letter at a time, so the configs counted are just the
+     * ones on the path. Anything else is solved with breadth first search. See Solver.buildShortestPath.
      *
      * @param args [0]: the starting string;
-     *             [1]: the finish string.
+     *             [1]: the finish string;
+     *             [2]: optional "bfs" to always use breadth first search.
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println(("Usage: java Strings start finish"));
+        if (args.length < 2 || args.length > 3 || (args.length == 3 && !args[2].equals(BFS_ARG))) {
+            System.out.println(("Usage: java Strings start finish [" + BFS_ARG + "]"));
         } else {
+            StringsConfig config = new StringsConfig(args[0], args[1]);
             Solver solver = new Solver();
-            List<Configuration> path = solver.buildPathBFS(new StringsConfig(args[0], args[1]));
+            List<Configuration> path = args.length == 2 ? solver.buildShortestPath(config) : solver.buildPathBFS(config);
             System.out.println("Start: "+ args[0] + ", End: " + args[1]);
             System.out.println("Total configs: " + solver.getLastTotalConfigs());
             System.out.println("Unique configs: " + solver.getLastUniqueConfigs());
@@ -2,19 +2,41 @@ package puzzles.strings;
 
 import puzzles.common.solver.Configuration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Configuration for solving the strings puzzle.
+ * Every move shifts a single letter, so the letters can be solved one at a time: each one takes the shorter way
+ * around the alphabet to its end letter. buildShortestPath uses this to make the path without searching.
+ * The end never changes, so every configuration of a puzzle shares it. Strings of up to 12 uppercase letters are
+ * packed into a long with 5 bits per letter, so a neighbor is a single small object; longer strings keep a char
+ * array. The hash is the String hash of the letters, updated for just the shifted letter with each move.
  *
  * @author Ethan Hartman (theeman05)
  */
 public class StringsConfig implements Configuration {
-    private final int CHAR_MIN = 65; // Uppercase 'A' char value
-    private final int CHAR_MAX = 90; // Uppercase 'Z' char value
-    private final String start, end; // Start string and end string to get to
+    private static final int CHAR_MIN = 65; // Uppercase 'A' char value
+    private static final int CHAR_MAX = 90; // Uppercase 'Z' char value
+    private static final int LETTER_BITS = 5; // Bits of a packed letter
+    private static final int MAX_PACKED = Long.SIZE / LETTER_BITS; // Most letters which pack into a long
+
+    private final Target target; // The end string to get to, shared by the whole puzzle
+    private final long packed; // The letters as 5 bit offsets from 'A', if the target packs
+    private final char[] letters; // The letters, if the target doesn't pack; these are never changed
+    private final int hash; // The String hash of the letters
+
+    /**
+     * The parts of the puzzle which never change.
+     *
+     * @param end the string we end the puzzle at
+     * @param packs whether configurations pack their letters into a long
+     * @param packedEnd the end packed into a long, if it packs
+     * @param powers the power of 31 each letter is multiplied by in the String hash
+     */
+    private record Target(String end, boolean packs, long packedEnd, int[] powers) {}
 
     /**
      * Default constructor for creating a StringsConfig object.
@@ -23,47 +45,167 @@ public class StringsConfig implements Configuration {
      * @param end The string we end the puzzle at
      */
     public StringsConfig(String start, String end){
-        this.start = start;
-        this.end = end;
+        int[] powers = new int[start.length()];
+        for (int i = powers.length - 1, power = 1; i >= 0; i--, power *= 31)
+            powers[i] = power;
+        boolean packs = start.length() <= MAX_PACKED && start.length() == end.length() && isUppercase(start + end);
+        target = new Target(end, packs, packs ? pack(end) : 0, powers);
+        packed = packs ? pack(start) : 0;
+        letters = packs ? null : start.toCharArray();
+        hash = start.hashCode();
     }
 
     /**
-     * Grab a substring of the initial string with the replacement character at the given index.
+     * Constructor for a neighbor which shifted one letter of a configuration.
      *
-     * @param initial string
-     * @param replacement character
-     * @param idx replacement index location
-     * @return a substring with the character at idx replaced by replacement
+     * @param from the configuration the neighbor came from
+     * @param idx the index of the shifted letter
+     * @param replacement the letter after the shift
+     */
+    private StringsConfig(StringsConfig from, int idx, char replacement){
+        target = from.target;
+        char old = from.charAt(idx);
+        if (target.packs()){
+            packed = from.packed + ((long) (replacement - old) << (idx * LETTER_BITS));
+            letters = null;
+        }else{
+            packed = 0;
+            letters = from.letters.clone();
+            letters[idx] = replacement;
+        }
+        hash = from.hash + (replacement - old) * target.powers()[idx];
+    }
+
+    /**
+     * Constructor for packed letters of a puzzle.
+     *
+     * @param target the end of the puzzle, which must pack
+     * @param packed the packed letters
+     */
+    private StringsConfig(Target target, long packed){
+        this.target = target;
+        this.packed = packed;
+        letters = null;
+        int newHash = 0;
+        for (int i = 0; i < length(); i++)
+            newHash += charAt(i) * target.powers()[i];
+        hash = newHash;
+    }
+
+    /**
+     * @param text the text to check
+     * @return true if every character of the text is within [A, Z]
      */
-    private String replaceCharAt(String initial, char replacement, int idx){
-        return initial.substring(0, idx) + replacement + initial.substring(idx+1);
+    private static boolean isUppercase(String text){
+        return text.chars().allMatch(c -> c >= CHAR_MIN && c <= CHAR_MAX);
+    }
+
+    /**
+     * @param text uppercase letters, at most MAX_PACKED of them
+     * @return the letters as 5 bit offsets from 'A', with the first letter lowest
+     */
+    private static long pack(String text){
+        long result = 0;
+        for (int i = 0; i < text.length(); i++)
+            result |= (long) (text.charAt(i) - CHAR_MIN) << (i * LETTER_BITS);
+        return result;
+    }
+
+    /** @return the number of letters in the current string */
+    private int length(){
+        return target.powers().length;
+    }
+
+    /**
+     * @param idx the index of a letter
+     * @return the letter at the index of the current string
+     */
+    private char charAt(int idx){
+        if (target.packs()) return (char) (CHAR_MIN + (packed >>> (idx * LETTER_BITS) & (1 << LETTER_BITS) - 1));
+        return letters[idx];
     }
 
     /**
      * Shift the character at the index of start down one within [A, Z]
      *
      * @param idx specified to shift down one character
-     * @return the shifted string
+     * @return the shifted configuration
      */
-    private String shiftCharAtDown(int idx){
-        return replaceCharAt(start, (char) (start.charAt(idx) > CHAR_MIN ? start.charAt(idx) - 1 : CHAR_MAX), idx);
+    private StringsConfig shiftCharAtDown(int idx){
+        return new StringsConfig(this, idx, (char) (charAt(idx) > CHAR_MIN ? charAt(idx) - 1 : CHAR_MAX));
     }
 
     /**
      * Shift the character at the index of start up one within [A, Z]
      *
      * @param idx specified to shift up one character
-     * @return the shifted string
+     * @return the shifted configuration
      */
-    private String shiftCharAtUp(int idx){
-        return replaceCharAt(start, (char)(start.charAt(idx) < CHAR_MAX ? start.charAt(idx) + 1 : CHAR_MIN), idx);
+    private StringsConfig shiftCharAtUp(int idx){
+        return new StringsConfig(this, idx, (char) (charAt(idx) < CHAR_MAX ? charAt(idx) + 1 : CHAR_MIN));
     }
 
     /**
      * @return the start String for this object
      */
     public String getStart(){
-        return start;
+        if (!target.packs()) return new String(letters);
+        char[] chars = new char[length()];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = charAt(i);
+        return new String(chars);
+    }
+
+    /**
+     * Can the path be made letter by letter? Only strings of uppercase letters can, since other characters don't
+     * shift around the alphabet.
+     *
+     * @return true if every character of the start and the end is within [A, Z]
+     */
+    public boolean isSeparable(){
+        return target.packs() || isUppercase(getStart() + target.end());
+    }
+
+    /**
+     * Make the shortest path from this configuration to the end without searching. Each letter is shifted the
+     * shorter way around the alphabet until it matches the end, going down when both ways are as short, one
+     * letter after another from the first. This is the path breadth first search finds as well, since it tries
+     * the moves in the same order.
+     *
+     * @return the path, or null if the start and end have different lengths
+     * @throws IllegalStateException if the strings aren't separable
+     */
+    public List<Configuration> buildShortestPath(){
+        if (!isSeparable()) throw new IllegalStateException("Only strings of uppercase letters can be solved directly");
+        String end = target.end();
+        if (length() != end.length()) return null;
+
+        int alphabet = CHAR_MAX - CHAR_MIN + 1;
+        List<Configuration> path = new ArrayList<>();
+        StringsConfig cur = this;
+        path.add(cur);
+        for (int at = 0; at < length(); at++){
+            int up = Math.floorMod(end.charAt(at) - charAt(at), alphabet);
+            boolean down = alphabet - up <= up;
+            for (int step = down ? alphabet - up : up; step > 0; step--){
+                cur = down ? cur.shiftCharAtDown(at) : cur.shiftCharAtUp(at);
+                path.add(cur);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Solve strings of uppercase letters directly.
+     *
+     * @return the path of buildShortestPath if the strings are separable, an empty list if they can't be solved,
+     * or null if they have to be searched
+     */
+    @Override
+    public List<Configuration> solveDirectly(){
+        if (!isSeparable()) return null;
+        List<Configuration> path = buildShortestPath();
+        return path == null ? List.of() : path;
     }
 
     /**
@@ -71,7 +213,13 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public boolean isSolution() {
-        return start.equals(end);
+        if (target.packs()) return packed == target.packedEnd();
+        String end = target.end();
+        if (letters.length != end.length()) return false;
+        for (int i = 0; i < letters.length; i++)
+            if (letters[i] != end.charAt(i))
+                return false;
+        return true;
     }
 
     /**
@@ -80,14 +228,38 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public Collection<Configuration> getNeighbors() {
-        List<Configuration> neighbors = new LinkedList<>();
-        for (int at = 0; at < start.length(); at++) {
-            neighbors.add(new StringsConfig(shiftCharAtDown(at), end));
-            neighbors.add(new StringsConfig(shiftCharAtUp(at), end));
+        List<Configuration> neighbors = new ArrayList<>(2 * length());
+        for (int at = 0; at < length(); at++) {
+            neighbors.add(shiftCharAtDown(at));
+            neighbors.add(shiftCharAtUp(at));
         }
         return neighbors;
     }
 
+    /**
+     * @return 1 if the letters pack into a long, or 0 if they don't.
+     */
+    @Override
+    public int getEncodedLength(){
+        return target.packs() ? 1 : 0;
+    }
+
+    /**
+     * Writes the packed letters.
+     */
+    @Override
+    public void encode(long[] dest, int offset){
+        dest[offset] = packed;
+    }
+
+    /**
+     * Rebuilds the letters from their packed long, sharing this configuration's end.
+     */
+    @Override
+    public Configuration decode(long[] src, int offset){
+        return new StringsConfig(target, src[offset]);
+    }
+
     /**
      * Check if the current object equals the given object.
      *
@@ -97,7 +269,8 @@ public class StringsConfig implements Configuration {
     @Override
     public boolean equals(Object other){
         if (other instanceof StringsConfig casted)
-            return start.equals(casted.start) && end.equals(casted.end);
+            return hash == casted.hash && packed == casted.packed && Arrays.equals(letters, casted.letters) &&
+                    target.end().equals(casted.target.end());
         return false;
     }
 
@@ -106,6 +279,6 @@ public class StringsConfig implements Configuration {
      */
     @Override
     public int hashCode(){
-        return start.hashCode() + end.hashCode();
+        return hash + target.end().hashCode();
     }
 }
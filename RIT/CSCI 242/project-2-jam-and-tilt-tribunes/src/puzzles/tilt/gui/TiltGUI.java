@@ -9,6 +9,7 @@ import javafx.stage.FileChooser;
 import puzzles.common.Observer;
 import puzzles.tilt.model.TiltModel;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.stage.Stage;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -57,7 +58,7 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
     private final static int TOO_MUCH_TEXT_LENGTH = 40;
 
     //current file
-    private static String currentFile;
+    private String currentFile;
 
     //main model
     private TiltModel model;
@@ -136,6 +137,7 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
         Button reset = new Button("Reset");
         Button loadGame = new Button("Load Game");
         Button hint = new Button("Hint");
+        Button cancel = new Button("Cancel");
         reset.setOnMouseClicked(event -> {
             try {
                 reset();
@@ -152,10 +154,11 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
             }
         });
         hint.setOnMouseClicked(event -> getHint());
+        cancel.setOnMouseClicked(event -> model.cancelHint());
 
         //add configurations to panes
         topPane.getChildren().addAll(observerText, up);
-        bottomPane.getChildren().addAll(down, reset, loadGame, hint);
+        bottomPane.getChildren().addAll(down, reset, loadGame, hint, cancel);
         rightPane.getChildren().addAll(right);
         leftPane.getChildren().addAll(left);
         centerBox.getChildren().addAll(leftPane, centerPane, rightPane);
@@ -173,11 +176,11 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
     }
 
     /**
-     * Updates game model with the correct next move.
+     * Updates game model with the correct next move, which is searched for in the background.
+     * The board is refreshed once the move arrives.
      */
     private void getHint(){
-        model.getHint();
-        refreshBoard();
+        model.getHintAsync(Platform::runLater);
     }
 
     /**
@@ -280,6 +283,9 @@ public class TiltGUI extends Application implements Observer<TiltModel, String>
             observerText.setFont(Font.font("Verdana", 15));
         }
         observerText.setText(message);
+        if (message.equals(TiltModel.NEXT_STEP)){
+            refreshBoard();
+        }
     }
 
     /**
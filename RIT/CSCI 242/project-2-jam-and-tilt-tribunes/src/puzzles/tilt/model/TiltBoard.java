@@ -0,0 +1,390 @@
+package puzzles.tilt.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a tilt puzzle which never change: the size of the board, where the blockers and the goal are, and how
+ * many blue sliders there are. It is shared by every TiltConfig of the same puzzle.
+ * A configuration stores the sliders of each row as bits, with the green sliders in the low half of an int and the
+ * blue sliders in the high half. Tilts are looked up in slide tables, one per row or column and direction, which
+ * map every arrangement of sliders in a line to where they end up. An arrangement is indexed as a base 3 number,
+ * with a digit of 0 for empty, 1 for green and 2 for blue. Lines with the same blockers and goal share a table.
+ * The board also knows which cells a green slider can still fall through the goal from, and which mirrors and
+ * rotations leave the blockers and goal where they are, so the solver can skip dead and symmetric configurations.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+final class TiltBoard {
+    /** The largest board size, which keeps the slide tables small */
+    static final int MAX_SIZE = 10;
+
+    /** The shift of the blue sliders in a line */
+    static final int BLUE_SHIFT = 16;
+
+    /** The bits of the green sliders in a line */
+    static final int GREEN_MASK = (1 << BLUE_SHIFT) - 1;
+
+    //directions the board can be tilted
+    static final int UP = 0;
+    static final int RIGHT = 1;
+    static final int DOWN = 2;
+    static final int LEFT = 3;
+
+    /** The directions in the order neighbors are made */
+    static final int[] DIRECTIONS = {UP, RIGHT, DOWN, LEFT};
+
+    /** The bits of a green and blue slider in the first cell of a line */
+    private static final int CELL_BITS = 1 | 1 << BLUE_SHIFT;
+
+    /** Value of the goal row and column when there is no goal */
+    static final int NO_GOAL = -1;
+
+    //parts of a symmetry, applied in this order
+    private static final int TRANSPOSE = 4;
+    private static final int MIRROR_COLUMNS = 1;
+    private static final int MIRROR_ROWS = 2;
+
+    /** The row and column steps of each direction a slider can move */
+    private static final int[][] STEPS = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
+
+    /** The number of mirrors and rotations of a square, including leaving it as it is */
+    private static final int SYMMETRIES = 8;
+
+    /** The length/width of the board */
+    private final int size;
+
+    /** The blocker cells of each row, as bits */
+    private final int[] blockerRows;
+
+    /** The location of the goal, or NO_GOAL */
+    private final int goalRow, goalCol;
+
+    /** The number of blue sliders, which must all stay on the board */
+    private final int blueCount;
+
+    /** The base 3 value of every line of bits, where each set bit is a digit of 1 */
+    private final int[] ternary;
+
+    /** The slide tables of each row, indexed by [row][0 for left, 1 for right] */
+    private final int[][][] rowTables;
+
+    /** The slide tables of each column, indexed by [column][0 for up, 1 for down] */
+    private final int[][][] columnTables;
+
+    /** The cells of each row a green slider can still reach the goal from, as bits */
+    private final int[] liveRows;
+
+    /** The symmetries, other than leaving the board as it is, which keep the blockers and goal in place */
+    private final int[] symmetries;
+
+    /**
+     * Create the board from the fixed cells of a puzzle.
+     *
+     * @param size the length/width of the board.
+     * @param blockerRows the blocker cells of each row, as bits.
+     * @param goalRow the row of the goal, or NO_GOAL.
+     * @param goalCol the column of the goal, or NO_GOAL.
+     * @param blueCount the number of blue sliders.
+     */
+    TiltBoard(int size, int[] blockerRows, int goalRow, int goalCol, int blueCount){
+        this.size = size;
+        this.blockerRows = blockerRows;
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+        this.blueCount = blueCount;
+
+        ternary = new int[1 << size];
+        for (int bits = 1; bits < ternary.length; bits++){
+            int low = Integer.numberOfTrailingZeros(bits);
+            ternary[bits] = ternary[bits & (bits - 1)] + pow3(low);
+        }
+
+        //tables are shared by lines with the same blockers and goal
+        Map<Long, int[]> tables = new HashMap<>();
+        rowTables = new int[size][2][];
+        columnTables = new int[size][2][];
+        for (int line = 0; line < size; line++){
+            int columnBlockers = 0;
+            for (int row = 0; row < size; row++){
+                columnBlockers |= (blockerRows[row] >> line & 1) << row;
+            }
+            for (int toEnd = 0; toEnd < 2; toEnd++){
+                rowTables[line][toEnd] = slideTable(tables, blockerRows[line],
+                        line == goalRow ? goalCol : NO_GOAL, toEnd == 1);
+                columnTables[line][toEnd] = slideTable(tables, columnBlockers,
+                        line == goalCol ? goalRow : NO_GOAL, toEnd == 1);
+            }
+        }
+
+        liveRows = findLiveRows();
+        int[] goalRows = new int[size];
+        if (goalRow != NO_GOAL) goalRows[goalRow] = 1 << goalCol;
+        List<Integer> found = new ArrayList<>();
+        for (int symmetry = 1; symmetry < SYMMETRIES; symmetry++){
+            if (Arrays.equals(transform(blockerRows, symmetry), blockerRows) &&
+                    Arrays.equals(transform(goalRows, symmetry), goalRows)){
+                found.add(symmetry);
+            }
+        }
+        symmetries = found.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Find the cells a green slider can still fall through the goal from. Other sliders can stop a slider anywhere
+     * along its way, so a slider can move to any cell before the next blocker, and falls if the goal is one of them.
+     * A cell is live if one of its four ways reaches the goal or another live cell.
+     *
+     * @return the live cells of each row, as bits.
+     */
+    private int[] findLiveRows(){
+        int[] live = new int[size];
+        if (goalRow == NO_GOAL) return live;
+        boolean changed = true;
+        while (changed){
+            changed = false;
+            for (int row = 0; row < size; row++){
+                for (int col = 0; col < size; col++){
+                    if ((live[row] >> col & 1) == 0 && !isBlocker(row, col) && reachesLive(live, row, col)){
+                        live[row] |= 1 << col;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return live;
+    }
+
+    /**
+     * @param live the live cells found so far.
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     * @return true if a slider at the cell can move to the goal or a live cell in one tilt.
+     */
+    private boolean reachesLive(int[] live, int row, int col){
+        for (int[] step : STEPS){
+            for (int r = row + step[0], c = col + step[1];
+                 r >= 0 && r < size && c >= 0 && c < size && !isBlocker(r, c); r += step[0], c += step[1]){
+                if ((r == goalRow && c == goalCol) || (live[r] >> c & 1) != 0){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mirror and/or rotate the lines of a board.
+     *
+     * @param lines the lines of each row, packed like a row.
+     * @param symmetry the parts of the symmetry to apply.
+     * @return the lines of each row after the symmetry.
+     */
+    private int[] transform(int[] lines, int symmetry){
+        int[] result = lines;
+        if ((symmetry & TRANSPOSE) != 0){
+            result = new int[size];
+            for (int row = 0; row < size; row++){
+                for (int col = 0; col < size; col++){
+                    result[col] |= (lines[row] >>> col & CELL_BITS) << row;
+                }
+            }
+        }
+        if ((symmetry & MIRROR_COLUMNS) != 0){
+            int[] mirrored = new int[size];
+            for (int row = 0; row < size; row++){
+                int greens = Integer.reverse(result[row] & GREEN_MASK) >>> (Integer.SIZE - size);
+                int blues = Integer.reverse(result[row] >>> BLUE_SHIFT) >>> (Integer.SIZE - size);
+                mirrored[row] = greens | blues << BLUE_SHIFT;
+            }
+            result = mirrored;
+        }
+        if ((symmetry & MIRROR_ROWS) != 0){
+            int[] mirrored = new int[size];
+            for (int row = 0; row < size; row++){
+                mirrored[row] = result[size - 1 - row];
+            }
+            result = mirrored;
+        }
+        return result;
+    }
+
+    /**
+     * Pick the same one of a configuration and all its symmetric images, so they can be stored once.
+     * They all need the same number of tilts to be solved, since every tilt of one is a tilt of the others.
+     *
+     * @param rows the sliders of each row.
+     * @return the smallest of the rows and their images, which is rows itself if the board has no symmetries.
+     */
+    int[] canonical(int[] rows){
+        int[] best = rows;
+        for (int symmetry : symmetries){
+            int[] image = transform(rows, symmetry);
+            if (Arrays.compare(image, best) < 0){
+                best = image;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param exponent the power to raise 3 to.
+     * @return 3 to the given power.
+     */
+    private static int pow3(int exponent){
+        int result = 1;
+        for (int i = 0; i < exponent; i++){
+            result *= 3;
+        }
+        return result;
+    }
+
+    /**
+     * Find or build the slide table of a line.
+     *
+     * @param tables the tables built so far, by their blockers, goal and direction.
+     * @param blockers the blocker cells of the line, as bits.
+     * @param goal the index of the goal in the line, or NO_GOAL.
+     * @param toEnd true if sliders move toward the end of the line, false if toward the start.
+     * @return where the sliders of every arrangement of the line end up, packed like a row.
+     */
+    private int[] slideTable(Map<Long, int[]> tables, int blockers, int goal, boolean toEnd){
+        long key = (long) blockers << 32 | (goal + 1) << 1 | (toEnd ? 1 : 0);
+        int[] table = tables.get(key);
+        if (table != null) return table;
+
+        table = new int[pow3(size)];
+        for (int index = 0; index < table.length; index++){
+            int greens = 0, blues = 0;
+            for (int i = 0, digits = index; i < size; i++, digits /= 3){
+                if (digits % 3 == 1) greens |= 1 << i;
+                else if (digits % 3 == 2) blues |= 1 << i;
+            }
+            table[index] = slide(blockers, goal, toEnd, greens, blues);
+        }
+        tables.put(key, table);
+        return table;
+    }
+
+    /**
+     * Slide every slider of a line as far as it goes. Sliders stop at the edge, a blocker or another slider, and
+     * fall through the goal if they reach it.
+     *
+     * @param blockers the blocker cells of the line, as bits.
+     * @param goal the index of the goal in the line, or NO_GOAL.
+     * @param toEnd true if sliders move toward the end of the line, false if toward the start.
+     * @param greens the green sliders of the line, as bits.
+     * @param blues the blue sliders of the line, as bits.
+     * @return the slid line, packed like a row.
+     */
+    private int slide(int blockers, int goal, boolean toEnd, int greens, int blues){
+        int step = toEnd ? -1 : 1;
+        int next = toEnd ? size - 1 : 0;
+        boolean falling = false;
+        int result = 0;
+        for (int i = next; i >= 0 && i < size; i += step){
+            if ((blockers >> i & 1) != 0){
+                next = i + step;
+                falling = false;
+            }else if (i == goal){
+                falling = true;
+            }else if (((greens | blues) >> i & 1) != 0){
+                if (!falling){
+                    result |= (greens >> i & 1) << next | (blues >> i & 1) << (next + BLUE_SHIFT);
+                    next += step;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param line the sliders of a line, packed like a row.
+     * @return the index of the line's arrangement in a slide table.
+     */
+    private int indexOf(int line){
+        return ternary[line & GREEN_MASK] + 2 * ternary[line >>> BLUE_SHIFT];
+    }
+
+    /**
+     * Tilt the board in a direction.
+     *
+     * @param rows the sliders of each row.
+     * @param direction the direction to tilt in.
+     * @return the sliders of each row after the tilt.
+     */
+    int[] tilt(int[] rows, int direction){
+        int[] result = new int[size];
+        if (direction == LEFT || direction == RIGHT){
+            int toEnd = direction == RIGHT ? 1 : 0;
+            for (int row = 0; row < size; row++){
+                result[row] = rowTables[row][toEnd][indexOf(rows[row])];
+            }
+        }else {
+            int toEnd = direction == DOWN ? 1 : 0;
+            for (int col = 0; col < size; col++){
+                int column = 0;
+                for (int row = 0; row < size; row++){
+                    column |= (rows[row] >>> col & CELL_BITS) << row;
+                }
+                int slid = columnTables[col][toEnd][indexOf(column)];
+                for (int row = 0; row < size; row++){
+                    result[row] |= (slid >>> row & CELL_BITS) << col;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param rows the sliders of each row.
+     * @return true if no blue slider has fallen through the goal.
+     */
+    boolean keepsBlues(int[] rows){
+        int blues = 0;
+        for (int row : rows){
+            blues += Integer.bitCount(row >>> BLUE_SHIFT);
+        }
+        return blues == blueCount;
+    }
+
+    /**
+     * @param rows the sliders of each row.
+     * @return true if every green slider is on a cell it can still reach the goal from.
+     */
+    boolean greensCanFall(int[] rows){
+        for (int row = 0; row < size; row++){
+            if ((rows[row] & ~liveRows[row] & GREEN_MASK) != 0){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** @return the length/width of the board. */
+    int getSize(){
+        return size;
+    }
+
+    /**
+     * @param row the row of the cell.
+     * @param col the column of the cell.
+     * @return true if the cell is a blocker.
+     */
+    boolean isBlocker(int row, int col){
+        return (blockerRows[row] >> col & 1) != 0;
+    }
+
+    /** @return the row of the goal, or NO_GOAL. */
+    int getGoalRow(){
+        return goalRow;
+    }
+
+    /** @return the column of the goal, or NO_GOAL. */
+    int getGoalCol(){
+        return goalCol;
+    }
+}
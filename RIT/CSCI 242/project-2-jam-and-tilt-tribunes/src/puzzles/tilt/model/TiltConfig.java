@@ -14,6 +14,10 @@ import java.util.Collection;
  * When you do that, all the sliders will move all the way across the board in that direction until they reach the end of the board or a blocker.
  * Moving them just half way is not allowed. The goal is to get all the green sliders to fall through the hole while
  * all the blue ones remain on the board. This video gives an explanation of how the puzzle is played.
+ * The configuration only stores the green and blue sliders of each row as bits. The blockers, goal and the slide
+ * tables tilts are looked up in are in the shared TiltBoard.
+ * If the blockers and goal are symmetric, mirrored and rotated configurations have the same encoding, so the
+ * solver only stores one of them.
  *
  * @author Yaroslav Khalitov
  */
@@ -29,275 +33,193 @@ public class TiltConfig implements Configuration {
     /** the goal */
     private final static char GOAL = 'O';
 
-    //possible directional inputs
-    private final static String UP = "UP";
-    private final static String RIGHT = "RIGHT";
-    private final static String DOWN = "DOWN";
-    private final static String LEFT = "LEFT";
-
     //board game variables
-    private final char [][] board;
-    private static int size;
-    private static int blueCount;
+    private final TiltBoard tiltBoard;
+    private final int[] rows;
 
     /**
      * Create initial game configuration using given filename.
      *
      * @param filename the filename to pull game data from.
-     * @exception IOException if the file cannot be read.
+     * @exception IOException if the file cannot be read, or the board is too big.
      */
     public TiltConfig (String filename) throws IOException {
         try (BufferedReader in = new BufferedReader(new FileReader(filename))){
             String line = in.readLine();
-            size = Integer.parseInt(line);
+            int size = Integer.parseInt(line);
+            if (size > TiltBoard.MAX_SIZE){
+                throw new IOException("Boards can be at most " + TiltBoard.MAX_SIZE + " wide");
+            }
             int counter = 0;
-            blueCount = 0;
-            board = new char [size][size];
+            int blueCount = 0;
+            int goalRow = TiltBoard.NO_GOAL;
+            int goalCol = TiltBoard.NO_GOAL;
+            int[] blockerRows = new int[size];
+            rows = new int[size];
 
             //read in filename and create game board
             while ((line = in.readLine()) != null){
                 String[] fields = line.split(" ");
                 for (int i = 0; i < size; i++){
-                    board[counter][i] = fields[i].charAt(0);
-                    if (fields[i].charAt(0) == BLUE){
-                        blueCount++;
+                    switch (fields[i].charAt(0)) {
+                        case BLOCKER -> blockerRows[counter] |= 1 << i;
+                        case GREEN -> rows[counter] |= 1 << i;
+                        case BLUE -> {
+                            rows[counter] |= 1 << (i + TiltBoard.BLUE_SHIFT);
+                            blueCount++;
+                        }
+                        case GOAL -> {
+                            goalRow = counter;
+                            goalCol = i;
+                        }
                     }
                 }
                 counter++;
             }
+            tiltBoard = new TiltBoard(size, blockerRows, goalRow, goalCol, blueCount);
         }
     }
 
     /**
-     * Create new configuration and shift it by given direction
+     * Create a copy of a configuration, which moves made on either won't change the other.
      *
-     * @param other the configuration from which to make a move.
-     * @param command the direction which to shift board.
+     * @param other the configuration to copy.
      */
-    private TiltConfig (TiltConfig other, String command){
-        //copy board values
-        board = new char[size][size];
-        for (int i = 0; i < size; i++){
-            for (int j = 0; j < size; j++){
-                board[i][j] = other.getVal(i, j);
-            }
-        }
-
-        //shift based on command
-        switch (command) {
-            case UP -> shiftUp();
-            case RIGHT -> shiftRight();
-            case DOWN -> shiftDown();
-            case LEFT -> shiftLeft();
-        }
-
+    public TiltConfig (TiltConfig other){
+        this(other.tiltBoard, other.rows.clone());
     }
 
     /**
-     * Shift game board pieces up based on the rules of the Tilt game.
+     * Create new configuration with the given sliders.
+     *
+     * @param tiltBoard the parts of the puzzle which never change.
+     * @param rows the sliders of each row, which are not copied.
      */
-    private void shiftUp(){
-        for (int i = 1; i < size; i++){
-            for (int j = 0; j < size; j++){
-                if (board[i][j] == GREEN || board[i][j] == BLUE){
-                    for (int k = i; k > 0 ; k--){
-                        if (board[k-1][j] == GOAL){
-                            board[k][j] = EMPTY;
-                            k = 0;
-                        }else if (board[k-1][j] == BLOCKER || board[k-1][j] == BLUE || board[k-1][j] == GREEN){
-                            k = 0;
-                        }else if (board[k-1][j] == EMPTY){
-                            char tempChar = board[k][j];
-                            board[k][j] = EMPTY;
-                            board[k-1][j] = tempChar;
-                        }
-                    }
-                }
-            }
-        }
+    private TiltConfig (TiltBoard tiltBoard, int[] rows){
+        this.tiltBoard = tiltBoard;
+        this.rows = rows;
     }
 
     /**
-     * Shift game board pieces right based on the rules of the Tilt game.
+     * Returns size of the board or length/width of board as they are the same.
+     *
+     * @return the size of the board.
      */
-    private void shiftRight(){
-        for (int j = size - 2; j >= 0; j--){
-            for (int i = size - 1; i >= 0; i--){
-                if (board[i][j] == GREEN || board[i][j] == BLUE){
-                    for (int k = j; k < size - 1 ; k++){
-                        if (board[i][k+1] == GOAL){
-                            board[i][k] = EMPTY;
-                            k = size;
-                        }else if (board[i][k+1] == BLOCKER || board[i][k+1] == BLUE || board[i][k+1] == GREEN){
-                            k = size;
-                        }else if (board[i][k+1] == EMPTY){
-                            char tempChar = board[i][k];
-                            board[i][k] = EMPTY;
-                            board[i][k+1] = tempChar;
-                        }
-                    }
-                }
-            }
-        }
+    public int getSize(){
+        return tiltBoard.getSize();
     }
 
     /**
-     * Shift game board pieces down based on the rules of the Tilt game.
+     * Tilts the board in a given direction if it is a valid move.
+     *
+     * @param direction the direction of board movement to test if it is valid
+     * @return true if the configuration is valid, false if the configuration is invalid
      */
-    private void shiftDown(){
-        for (int i = size - 2; i >= 0; i--){
-            for (int j = size - 1; j >= 0; j--){
-                if (board[i][j] == GREEN || board[i][j] == BLUE){
-                    for (int k = i; k < size - 1 ; k++){
-                        if (board[k+1][j] == GOAL){
-                            board[k][j] = EMPTY;
-                            k = size;
-                        }else if (board[k+1][j] == BLOCKER || board[k+1][j] == BLUE || board[k+1][j] == GREEN){
-                            k = size;
-                        }else if (board[k+1][j] == EMPTY){
-                            char tempChar = board[k][j];
-                            board[k][j] = EMPTY;
-                            board[k+1][j] = tempChar;
-                        }
-                    }
-                }
+    public boolean probeSpecificMove(String direction){
+        int tilt;
+        switch (direction) {
+            case "n" -> tilt = TiltBoard.UP;
+            case "e" -> tilt = TiltBoard.RIGHT;
+            case "s" -> tilt = TiltBoard.DOWN;
+            case "w" -> tilt = TiltBoard.LEFT;
+            default -> {
+                return false;
             }
         }
+
+        int[] tilted = tiltBoard.tilt(rows, tilt);
+        if (!tiltBoard.keepsBlues(tilted)){
+            return false;
+        }
+        System.arraycopy(tilted, 0, rows, 0, rows.length);
+        return true;
     }
 
     /**
-     * Shift game board pieces left based on the rules of the Tilt game.
+     * Creates up to 4 additional configurations of each possible move on the current configuration.
+     * Does not add configuration if the tilt changes nothing, if a blue slider falls through the goal, or if a
+     * green slider is stuck where it can never reach the goal.
+     *
+     * @return the collection of configurations.
      */
-    private void shiftLeft(){
-        for (int j = 1; j < size; j++){
-            for (int i = 0; i < size; i++){
-                if (board[i][j] == GREEN || board[i][j] == BLUE){
-                    for (int k = j; k > 0 ; k--){
-                        if (board[i][k-1] == GOAL){
-                            board[i][k] = EMPTY;
-                            k = 0;
-                        }else if (board[i][k-1] == BLOCKER || board[i][k-1] == BLUE || board[i][k-1] == GREEN){
-                            k = 0;
-                        }else if (board[i][k-1] == EMPTY){
-                            char tempChar = board[i][k];
-                            board[i][k] = EMPTY;
-                            board[i][k-1] = tempChar;
-                        }
-                    }
-                }
+    @Override
+    public Collection<Configuration> getNeighbors() {
+        Collection<Configuration> myConfigs = new ArrayList<>(4);
+        for (int tilt : TiltBoard.DIRECTIONS){
+            int[] tilted = tiltBoard.tilt(rows, tilt);
+            if (!Arrays.equals(tilted, rows) && tiltBoard.keepsBlues(tilted) && tiltBoard.greensCanFall(tilted)){
+                myConfigs.add(new TiltConfig(tiltBoard, tilted));
             }
         }
+        return myConfigs;
     }
 
     /**
-     * Determine if a configuration is valid or not by comparing blue piece count
-     * before and after move.
+     * Tests to see if the configuration is solved.
      *
-     * @return true if the configuration is valid, false if the configuration is invalid.
+     * @return true if there are no more green pieces left, false if there are still green pieces left
      */
-    private boolean isValid(){
-        int newBlueCount = 0;
-        for (int i = 0; i < size; i++){
-            for (int j = 0; j < size; j++){
-                if (board[i][j] == BLUE){
-                    newBlueCount++;
-                }
+    @Override
+    public boolean isSolution() {
+        for (int row : rows){
+            if ((row & TiltBoard.GREEN_MASK) != 0){
+                return false;
             }
         }
-        return newBlueCount == blueCount;
+        return true;
     }
 
-    /**
-     * Returns size of the board or length/width of board as they are the same.
-     *
-     * @return the size of the board.
-     */
-    public int getSize(){
-        return size;
+    /** @return the number of rows which fit in one long of the encoding. */
+    private int rowsPerLong(){
+        return Long.SIZE / (2 * getSize());
     }
 
     /**
-     * Creates a configuration based on a given direction and tests it to see if it is a valid move.
+     * Returns the number of longs the board packs into, with the green and blue sliders of a row side by side.
      *
-     * @param direction the direction of board movement to test if it is valid
-     * @return true if the configuration is valid, false if the configuration is invalid
+     * @return the encoded length of the board.
      */
-    public boolean probeSpecificMove(String direction){
-        switch (direction) {
-            case "n" -> {
-                TiltConfig testConfiguration = new TiltConfig(this, UP);
-                if (testConfiguration.isValid()) {
-                    this.shiftUp();
-                    return true;
-                }
-
-            }
-            case "e" -> {
-                TiltConfig testConfiguration = new TiltConfig(this, RIGHT);
-                if (testConfiguration.isValid()) {
-                    this.shiftRight();
-                    return true;
-                }
-
-            }
-            case "s" -> {
-                TiltConfig testConfiguration = new TiltConfig(this, DOWN);
-                if (testConfiguration.isValid()) {
-                    this.shiftDown();
-                    return true;
-                }
-
-            }
-            case "w" -> {
-                TiltConfig testConfiguration = new TiltConfig(this, LEFT);
-                if (testConfiguration.isValid()) {
-                    this.shiftLeft();
-                    return true;
-                }
-
-            }
-        }
-        return false;
+    @Override
+    public int getEncodedLength() {
+        return (getSize() + rowsPerLong() - 1) / rowsPerLong();
     }
 
     /**
-     * Creates up to 4 additional configurations of each possible move on the current configuration.
-     * Does not add configuration if it is invalid.
+     * Packs each row of the board into 2 bits per cell: the green sliders, then the blue sliders.
+     * Symmetric configurations are packed the same way, from the image TiltBoard.canonical picks.
      *
-     * @return the collection of configurations.
+     * @param dest the array to write the encoding to.
+     * @param offset the index in dest to start writing at.
      */
     @Override
-    public Collection<Configuration> getNeighbors() {
-        Collection<Configuration> myConfigs = new ArrayList<>();
-        TiltConfig neighbor1 = new TiltConfig(this, UP);
-        TiltConfig neighbor2 = new TiltConfig(this, RIGHT);
-        TiltConfig neighbor3 = new TiltConfig(this, DOWN);
-        TiltConfig neighbor4 = new TiltConfig(this, LEFT);
-
-
-        if (neighbor1.isValid()){
-            myConfigs.add(neighbor1);
-        }
-        if (neighbor2.isValid()){
-            myConfigs.add(neighbor2);
-        }
-        if (neighbor3.isValid()){
-            myConfigs.add(neighbor3);
-        }
-        if (neighbor4.isValid()){
-            myConfigs.add(neighbor4);
+    public void encode(long[] dest, int offset) {
+        int size = getSize(), perLong = rowsPerLong();
+        int[] rows = tiltBoard.canonical(this.rows);
+        Arrays.fill(dest, offset, offset + getEncodedLength(), 0);
+        for (int i = 0; i < size; i++){
+            long row = (rows[i] & TiltBoard.GREEN_MASK) | (long) (rows[i] >>> TiltBoard.BLUE_SHIFT) << size;
+            dest[offset + i / perLong] |= row << (i % perLong * 2 * size);
         }
-        return myConfigs;
     }
 
     /**
-     * Tests to see if the configuration is solved.
+     * Rebuilds the sliders from their encoding, sharing this board's blockers and goal.
+     * On a symmetric board this may be a mirrored or rotated image of the configuration which was encoded.
      *
-     * @return true if there are no more green pieces left, false if there are still green pieces left
+     * @param src the array holding the encoding.
+     * @param offset the index in src the encoding starts at.
+     * @return the decoded configuration.
      */
     @Override
-    public boolean isSolution() {
-        return !(toString().contains((String.valueOf(GREEN))));
+    public Configuration decode(long[] src, int offset) {
+        int size = getSize(), perLong = rowsPerLong();
+        long lineMask = (1L << size) - 1;
+        int[] newRows = new int[size];
+        for (int i = 0; i < size; i++){
+            long row = src[offset + i / perLong] >>> (i % perLong * 2 * size);
+            newRows[i] = (int) (row & lineMask) | (int) (row >>> size & lineMask) << TiltBoard.BLUE_SHIFT;
+        }
+        return new TiltConfig(tiltBoard, newRows);
     }
 
     /**
@@ -309,19 +231,19 @@ public class TiltConfig implements Configuration {
     @Override
     public boolean equals(Object other) {
         if (other instanceof TiltConfig otherConfig){
-            return (Arrays.deepEquals(this.getCurrent(), otherConfig.getCurrent()));
+            return Arrays.equals(rows, otherConfig.rows);
         }
         return false;
     }
 
     /**
-     * Hashcode function for configurations. Does hashcode from game board.
+     * Hashcode function for configurations. Does hashcode from the sliders of each row.
      *
      * @return hashcode.
      */
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        return Arrays.hashCode(rows);
     }
 
     /**
@@ -333,11 +255,11 @@ public class TiltConfig implements Configuration {
     public String toString() {
         StringBuilder result = new StringBuilder();
 
-        for (int i = 0; i < size; i++){
-            for (int j = 0; j < size; j++){
-                result.append(board[i][j]);
+        for (int i = 0; i < getSize(); i++){
+            for (int j = 0; j < getSize(); j++){
+                result.append(getVal(i, j));
                 result.append(" ");
-                if (j == board.length - 1){
+                if (j == getSize() - 1){
                     result.append("\n");
                 }
             }
@@ -347,11 +269,19 @@ public class TiltConfig implements Configuration {
     }
 
     /**
-     * Returns a clone of the current board.
+     * Returns a copy of the current board.
      *
-     * @return clone of current board.
+     * @return copy of current board.
      */
-    public char[][] getCurrent() {return board.clone();}
+    public char[][] getCurrent() {
+        char[][] board = new char[getSize()][getSize()];
+        for (int i = 0; i < getSize(); i++){
+            for (int j = 0; j < getSize(); j++){
+                board[i][j] = getVal(i, j);
+            }
+        }
+        return board;
+    }
 
     /**
      * Returns specific value in the grid.
@@ -359,7 +289,26 @@ public class TiltConfig implements Configuration {
      * @return value at a specific board point in the puzzle.
      */
     public char getVal(int row, int col) {
-        return board[row][col];
+        if (tiltBoard.isBlocker(row, col)){
+            return BLOCKER;
+        }else if (row == tiltBoard.getGoalRow() && col == tiltBoard.getGoalCol()){
+            return GOAL;
+        }else if ((rows[row] >> col & 1) != 0){
+            return GREEN;
+        }else if ((rows[row] >> (col + TiltBoard.BLUE_SHIFT) & 1) != 0){
+            return BLUE;
+        }
+        return EMPTY;
+    }
+
+    /** @return the parts of the puzzle which never change. */
+    TiltBoard getTiltBoard() {
+        return tiltBoard;
+    }
+
+    /** @return the sliders of each row, which must not be changed. */
+    int[] getRows() {
+        return rows;
     }
 
 }
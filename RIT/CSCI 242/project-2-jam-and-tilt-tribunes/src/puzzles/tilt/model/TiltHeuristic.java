@@ -0,0 +1,38 @@
+package puzzles.tilt.model;
+
+import puzzles.common.solver.Heuristic;
+
+/**
+ * Heuristic for tilt. Every tilt moves the sliders along a single row or column, so a green slider in the same
+ * row or column as the goal needs at least one more tilt to fall in, and any other green slider needs at least two.
+ * The estimate is the most tilts needed by any green slider. Sliders in other rows and columns may stop a green
+ * slider sooner, so blockers can't be used to tighten the estimate without overestimating.
+ *
+ * @author Ethan Hartman (theeman05)
+ */
+public class TiltHeuristic implements Heuristic<TiltConfig> {
+    /**
+     * Estimates the number of tilts left for every green slider to fall through the goal.
+     *
+     * @param config the configuration to estimate.
+     * @return 0 if there are no green sliders, 1 if they are all lined up with the goal, 2 otherwise.
+     */
+    @Override
+    public int estimate(TiltConfig config) {
+        TiltBoard tiltBoard = config.getTiltBoard();
+        int[] rows = config.getRows();
+        int goalColumn = tiltBoard.getGoalCol() == TiltBoard.NO_GOAL ? 0 : 1 << tiltBoard.getGoalCol();
+
+        int estimate = 0;
+        for (int i = 0; i < rows.length; i++){
+            int greens = rows[i] & TiltBoard.GREEN_MASK;
+            if (greens != 0){
+                if (i != tiltBoard.getGoalRow() && (greens & ~goalColumn) != 0){
+                    return 2;
+                }
+                estimate = 1;
+            }
+        }
+        return estimate;
+    }
+}
@@ -1,10 +1,13 @@
 package puzzles.tilt.model;
 import puzzles.common.Observer;
 import puzzles.common.solver.Configuration;
+import puzzles.common.solver.HintCache;
+import puzzles.common.solver.SolveService;
 import puzzles.common.solver.Solver;
 import java.io.IOException;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * This is a model for the game called tilt.
@@ -19,6 +22,18 @@ import java.util.List;
  * @author Yaroslav Khalitov
  */
 public class TiltModel {
+    /** message sent when a hint has moved the board to the next step */
+    public static final String NEXT_STEP = "Next Step!";
+
+    /** message sent while a hint is being searched for, which progress is appended to */
+    public static final String SOLVING = "Solving...";
+
+    /** message sent when searching for a hint is cancelled */
+    public static final String HINT_CANCELLED = "Hint Cancelled!";
+
+    /** message which precedes the reason searching for a hint failed */
+    public static final String HINT_FAILED = "Hint Failed: ";
+
     /** the collection of observers of this model */
     private final List<Observer<TiltModel, String>> observers = new LinkedList<>();
 
@@ -26,6 +41,14 @@ public class TiltModel {
     private TiltConfig currentConfig;
     private final Solver solver;
 
+    /** the last path found by the solver, so hints along it don't search again */
+    private final HintCache hintCache = new HintCache();
+
+    /** runs hint searches in the background */
+    private final SolveService solveService = new SolveService();
+
+    /** where progress of a background search is handed to, or null if no background search was started */
+    private volatile Executor progressCallback;
 
     /**
      * Create initial game configuration using given filename and a solver.
@@ -35,25 +58,95 @@ public class TiltModel {
     public TiltModel(String filename) throws IOException {
         currentConfig = new TiltConfig(filename);
         solver = new Solver();
+        solver.setProgressListener((explored, frontier) -> {
+            Executor callback = progressCallback;
+            if (callback != null)
+                callback.execute(() -> alertObservers(SOLVING + " explored " + explored + ", frontier " + frontier));
+        });
     }
 
     /**
-     * Solves the puzzle and obtains the next move. Sets current configuration
-     * to that move.
+     * Obtains the next move and sets current configuration to that move.
      */
     public void getHint(){
-        List<Configuration> path = solver.buildPathBFS(currentConfig);
+        if (currentConfig.isSolution()){
+            alertObservers("Already Solved!");
+            return;
+        }
+        applyHint(findNextStep(currentConfig));
+    }
 
-        if (path == null){
-            alertObservers("No Solution!");
-        }else if (path.size() > 1) {
-            currentConfig = (TiltConfig) path.get(1);
-            alertObservers("Next Step!");
-        }else{
+    /**
+     * Searches for the next move on a background thread, so the GUI doesn't freeze on large boards.
+     * Progress and the result are handed to the callback executor, like Platform::runLater. The hint is dropped
+     * if a move was made while it was being searched for.
+     *
+     * @param callback the executor to alert observers through.
+     */
+    public void getHintAsync(Executor callback){
+        if (currentConfig.isSolution()){
             alertObservers("Already Solved!");
+            return;
+        }
+        TiltConfig from = snapshot();
+        progressCallback = callback;
+        if (solveService.submit(() -> findNextStep(from),
+                next -> { if (currentConfig.equals(from)) applyHint(next); },
+                () -> alertObservers(HINT_CANCELLED), e -> alertObservers(HINT_FAILED + e), callback))
+            alertObservers(SOLVING);
+    }
+
+    /**
+     * Cancels the hint being searched for in the background, if there is one.
+     */
+    public void cancelHint(){
+        solveService.cancel();
+    }
+
+    /**
+     * Finds the next move from a configuration.
+     * The move comes from the last path found when the configuration is still on it. Otherwise the
+     * search rejoins the last path, or solves the puzzle from scratch if there isn't one.
+     *
+     * @param from the configuration to find the next move from.
+     * @return the next move, or null if there is no solution.
+     */
+    private synchronized TiltConfig findNextStep(TiltConfig from){
+        Configuration next = hintCache.nextStep(from);
+        if (next == null && hintCache.hasPath()) next = hintCache.rejoin(from, solver, new TiltHeuristic());
+        if (next == null){
+            List<Configuration> path = solver.buildPathAStar(from, new TiltHeuristic());
+            hintCache.seed(path);
+            if (path != null) next = path.get(1);
+        }
+        return (TiltConfig) next;
+    }
+
+    /**
+     * Sets current configuration to the next move and alerts observers.
+     *
+     * @param next the next move, or null if there is no solution.
+     */
+    private void applyHint(TiltConfig next){
+        if (next == null){
+            alertObservers("No Solution!");
+        }else {
+            currentConfig = next;
+            alertObservers(NEXT_STEP);
         }
     }
 
+    /**
+     * Returns a copy of the current configuration, which moves won't change.
+     * The copy is made from the sliders themselves rather than the encoding, since the encoding of a symmetric
+     * board may be a mirror image of it.
+     *
+     * @return the copy of the current configuration.
+     */
+    private TiltConfig snapshot(){
+        return new TiltConfig(currentConfig);
+    }
+
     /**
      * Returns size of the board or length/width of board as they are the same.
      *
@@ -80,7 +173,11 @@ public class TiltModel {
      */
     public void loadFromFile(String filename) throws IOException {
         try {
-            currentConfig = new TiltConfig(filename);
+            solveService.cancel();
+            synchronized (this) { // wait for the background search to stop using the last board
+                currentConfig = new TiltConfig(filename);
+                hintCache.clear();
+            }
             alertObservers("Loaded: " + filename);
         }catch(Exception e){
             alertObservers("Could not load: " + filename);
@@ -11,25 +11,44 @@ import java.util.List;
  * @author Ethan Hartman (theeman05)
  */
 public class Water {
+    /** The last argument which finds the path pouring the fewest liters instead of the fewest steps */
+    private static final String LITERS_ARG = "liters";
+
     /**
      * Run an instance of the water buckets puzzle.
+     * Amounts which can't be reached are found without searching, so they show just the starting config.
      *
      * @param args [0]: desired amount of water to be collected;
-     *             [1..N]: the capacities of the N available buckets.
+     *             [1..N]: the capacities of the N available buckets;
+     *             optional last argument "liters" to pour the fewest liters instead of making the fewest steps.
      */
     public static void main(String[] args) {
-        if (args.length < 2) {
-            System.out.println("Usage: java Water amount bucket1 bucket2 ...");
+        boolean liters = args.length > 0 && args[args.length - 1].equals(LITERS_ARG);
+        int bucketsEnd = liters ? args.length - 1 : args.length;
+        if (bucketsEnd < 2) {
+            System.out.println("Usage: java Water amount bucket1 bucket2 ... [" + LITERS_ARG + "]");
         } else {
             List<Integer> buckets = new java.util.ArrayList<>();
             Solver solver = new Solver();
-            for (int i = 1; i < args.length; i++) buckets.add(Integer.valueOf(args[i]));
+            for (int i = 1; i < bucketsEnd; i++) buckets.add(Integer.valueOf(args[i]));
 
-            List<Configuration> path = solver.buildPathBFS(new WaterConfig(Integer.parseInt(args[0]), buckets));
+            WaterConfig config = new WaterConfig(Integer.parseInt(args[0]), buckets);
+            if (liters && config.getEncodedLength() == 0) {
+                System.out.println("The buckets are too big to pour the fewest liters");
+                return;
+            }
+            List<Configuration> path = liters && config.isReachable() ?
+                    solver.buildPathDijkstra(config, WaterConfig::litersMoved) : solver.buildShortestPath(config);
 
             System.out.println("Amount: "+ args[0] + ", Buckets: " + buckets);
             System.out.println("Total configs: " + solver.getLastTotalConfigs());
             System.out.println("Unique configs: " + solver.getLastUniqueConfigs());
+            if (liters && path != null){
+                int poured = 0;
+                for (int i = 1; i < path.size(); i++)
+                    poured += ((WaterConfig) path.get(i - 1)).litersMoved((WaterConfig) path.get(i));
+                System.out.println("Liters poured: " + poured);
+            }
 
             if (path != null){
                 for (int i = 0; i< path.size(); i++)
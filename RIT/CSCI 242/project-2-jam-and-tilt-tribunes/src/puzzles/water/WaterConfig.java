@@ -3,17 +3,21 @@ package puzzles.water;
 import puzzles.common.solver.Configuration;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Configuration for solving the water puzzle.
+ * The fills are kept in an int array. The sizes and place values of the buckets never change, so every
+ * configuration of a puzzle shares the same arrays. The fills encode into a single long as a mixed radix number,
+ * where each bucket is a digit with its size + 1 possible values, as long as every fill fits.
  *
  * @author Ethan Hartman (theeman05)
  */
 public class WaterConfig implements Configuration {
-    private final List<Integer> bucketSizes, bucketFills; // Sizes of the buckets, and how much fluid is in the buckets.
+    private final int[] bucketSizes, bucketFills; // Sizes of the buckets, and how much fluid is in the buckets.
+    private final long[] placeValues; // Value of one liter in each bucket in the encoding, or null if it doesn't fit a long
     private final int desiredFill; // The fill we are trying to reach
 
     /**
@@ -25,8 +29,9 @@ public class WaterConfig implements Configuration {
      */
     public WaterConfig(int desiredFill, List<Integer> bucketSizes, List<Integer> bucketFills) {
         this.desiredFill = desiredFill;
-        this.bucketSizes = bucketSizes;
-        this.bucketFills = bucketFills;
+        this.bucketSizes = bucketSizes.stream().mapToInt(Integer::intValue).toArray();
+        this.bucketFills = bucketFills.stream().mapToInt(Integer::intValue).toArray();
+        placeValues = placeValues(this.bucketSizes);
     }
 
     /**
@@ -38,57 +43,147 @@ public class WaterConfig implements Configuration {
      */
     public WaterConfig(int desiredFill, List<Integer> bucketSizes) {
         this.desiredFill = desiredFill;
-        this.bucketSizes = bucketSizes;
-        bucketFills = new ArrayList<>();
-        bucketSizes.forEach(ignored -> bucketFills.add(0));
+        this.bucketSizes = bucketSizes.stream().mapToInt(Integer::intValue).toArray();
+        bucketFills = new int[this.bucketSizes.length];
+        placeValues = placeValues(this.bucketSizes);
+    }
+
+    /**
+     * Constructor for a neighbor, sharing the sizes and place values of the configuration it came from.
+     *
+     * @param other the configuration the neighbor came from
+     * @param bucketFills How much fluid is in the buckets, which is not copied
+     */
+    private WaterConfig(WaterConfig other, int[] bucketFills) {
+        desiredFill = other.desiredFill;
+        bucketSizes = other.bucketSizes;
+        placeValues = other.placeValues;
+        this.bucketFills = bucketFills;
+    }
+
+    /**
+     * Find the place value of each bucket in the encoding, which is the product of the sizes + 1 of the buckets
+     * before it.
+     *
+     * @param bucketSizes Sizes of the buckets
+     * @return the place values, or null if the largest encoding doesn't fit in a long
+     */
+    private static long[] placeValues(int[] bucketSizes){
+        long[] places = new long[bucketSizes.length];
+        long place = 1;
+        for (int i = 0; i < bucketSizes.length; i++){
+            places[i] = place;
+            if (bucketSizes[i] < 0 || place > Long.MAX_VALUE / (bucketSizes[i] + 1L)) return null;
+            place *= bucketSizes[i] + 1L;
+        }
+        return places;
     }
 
     /**
      * @return the fluid level in the buckets.
      */
     public List<Integer> getBucketFills(){
-        return bucketFills;
+        List<Integer> fills = new ArrayList<>(bucketFills.length);
+        for (int fill : bucketFills) fills.add(fill);
+        return fills;
     }
 
     /**
-     * Create a new list, cloning values from bucketFills, and empty the bucket at the given index.
+     * Clone bucketFills, and empty the bucket at the given index.
      *
      * @param idx to empty a bucket at.
-     * @return a new list with an empty bucket at idx and cloned other values.
+     * @return new fills with an empty bucket at idx and cloned other values.
      */
-    private List<Integer> emptyBucketAt(int idx){
-        List<Integer> newFills = new ArrayList<>(bucketFills);
-        newFills.set(idx, 0);
+    private int[] emptyBucketAt(int idx){
+        int[] newFills = bucketFills.clone();
+        newFills[idx] = 0;
         return newFills;
     }
 
     /**
-     * Create a new list, cloning values from bucketFills, and fill the bucket at the given index.
+     * Clone bucketFills, and fill the bucket at the given index.
      *
      * @param idx to fill a bucket at.
-     * @return a new list with a filled bucket at idx and cloned other values.
+     * @return new fills with a filled bucket at idx and cloned other values.
      */
-    private List<Integer> fillBucketAt(int idx){
-        List<Integer> newFills = new ArrayList<>(bucketFills);
-        newFills.set(idx, bucketSizes.get(idx));
+    private int[] fillBucketAt(int idx){
+        int[] newFills = bucketFills.clone();
+        newFills[idx] = bucketSizes[idx];
         return newFills;
     }
 
     /**
-     * Create a new list, cloning values from bucketFills, and pouring water from one index into another.
+     * Clone bucketFills, and pour water from one index into another.
      *
      * @param from bucket index to pour water from.
      * @param into bucket index to pour water into
-     * @return the same fill if 'into' is full already or a new list with 'from' poured into 'into'
+     * @return the same fills if 'into' is full already or new fills with 'from' poured into 'into'
      */
-    private List<Integer> pourWater(int from, int into){
-        if (bucketFills.get(into).equals(bucketSizes.get(into))) return bucketFills; // Return the same fill
-        List<Integer> newFills = new ArrayList<>(bucketFills);
-        newFills.set(into, Math.min(bucketSizes.get(into), bucketFills.get(from) + bucketFills.get(into)));
-        newFills.set(from, Math.abs(newFills.get(into) - bucketFills.get(into) - bucketFills.get(from)));
+    private int[] pourWater(int from, int into){
+        if (bucketFills[into] == bucketSizes[into]) return bucketFills; // Return the same fill
+        int[] newFills = bucketFills.clone();
+        newFills[into] = Math.min(bucketSizes[into], bucketFills[from] + bucketFills[into]);
+        newFills[from] = Math.abs(newFills[into] - bucketFills[into] - bucketFills[from]);
         return newFills;
     }
 
+    /**
+     * Can the desired fill be reached at all? Every move keeps each fill a multiple of the gcd of the bucket sizes,
+     * and no bucket can hold more than its size, so a desired fill which breaks either rule can't be reached.
+     * Checking this is much faster than a search which has to run out of configurations to find no solution.
+     *
+     * @return false if the desired fill is unreachable; true if it might be reached
+     */
+    public boolean isReachable(){
+        if (isSolution()) return true;
+        int gcd = 0, largest = 0;
+        for (int size : bucketSizes){
+            gcd = gcd(gcd, Math.abs(size));
+            largest = Math.max(largest, size);
+        }
+        return desiredFill > 0 && desiredFill <= largest && desiredFill % gcd == 0;
+    }
+
+    /**
+     * An unreachable fill has no solution, so it doesn't need a search.
+     *
+     * @return an empty list if the desired fill is unreachable, or null if it has to be searched
+     */
+    @Override
+    public List<Configuration> solveDirectly(){
+        return isReachable() ? null : List.of();
+    }
+
+    /**
+     * @param a a number which isn't negative
+     * @param b a number which isn't negative
+     * @return the greatest common divisor of a and b, which is the other number if one of them is 0
+     */
+    private static int gcd(int a, int b){
+        while (b != 0){
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * How many liters a move to a neighbor moves: the water added by a fill, removed by an empty, or poured from
+     * one bucket into another.
+     *
+     * @param to the neighbor after the move
+     * @return the liters moved
+     */
+    public int litersMoved(WaterConfig to){
+        int added = 0, removed = 0;
+        for (int i = 0; i < bucketFills.length; i++){
+            if (to.bucketFills[i] > bucketFills[i]) added += to.bucketFills[i] - bucketFills[i];
+            else removed += bucketFills[i] - to.bucketFills[i];
+        }
+        return Math.max(added, removed);
+    }
+
     /**
      * Is any of the buckets equal to the desired fill?
      *
@@ -113,20 +208,53 @@ public class WaterConfig implements Configuration {
      */
     @Override
     public Collection<Configuration> getNeighbors() {
-        List<Configuration> neighbors = new LinkedList<>();
-        for (int i = 0; i < bucketFills.size(); i++){
-            if (bucketFills.get(i) == 0) //  Only want to fill empty buckets
-                neighbors.add(new WaterConfig(desiredFill, bucketSizes, fillBucketAt(i)));
+        List<Configuration> neighbors = new ArrayList<>(bucketFills.length * bucketFills.length);
+        for (int i = 0; i < bucketFills.length; i++){
+            if (bucketFills[i] == 0) //  Only want to fill empty buckets
+                neighbors.add(new WaterConfig(this, fillBucketAt(i)));
             else{  // Not an empty bucket so empty and try pouring
-                neighbors.add(new WaterConfig(desiredFill, bucketSizes, emptyBucketAt(i)));
-                for (int j = 0; j < bucketFills.size(); j++)
-                    if (i != j) neighbors.add(new WaterConfig(desiredFill, bucketSizes, pourWater(i, j)));
+                neighbors.add(new WaterConfig(this, emptyBucketAt(i)));
+                for (int j = 0; j < bucketFills.length; j++)
+                    if (i != j) neighbors.add(new WaterConfig(this, pourWater(i, j)));
             }
         }
 
         return neighbors;
     }
 
+    /**
+     * @return 1 if the fills encode into a long, or 0 if the buckets are too big.
+     */
+    @Override
+    public int getEncodedLength(){
+        return placeValues == null ? 0 : 1;
+    }
+
+    /**
+     * Packs the fills into a mixed radix number, with the first bucket as the lowest digit.
+     */
+    @Override
+    public void encode(long[] dest, int offset){
+        long code = 0;
+        for (int i = 0; i < bucketFills.length; i++)
+            code += bucketFills[i] * placeValues[i];
+        dest[offset] = code;
+    }
+
+    /**
+     * Rebuilds the fills from their mixed radix number, sharing this configuration's sizes.
+     */
+    @Override
+    public Configuration decode(long[] src, int offset){
+        long code = src[offset];
+        int[] fills = new int[bucketSizes.length];
+        for (int i = 0; i < fills.length; i++){
+            fills[i] = (int) (code % (bucketSizes[i] + 1L));
+            code /= bucketSizes[i] + 1L;
+        }
+        return new WaterConfig(this, fills);
+    }
+
     /**
      * If the current WaterConfig equals the other.
      *
@@ -136,8 +264,8 @@ public class WaterConfig implements Configuration {
     @Override
     public boolean equals(Object other){
         if (other instanceof WaterConfig casted)
-            return desiredFill == casted.desiredFill && bucketSizes.equals(casted.bucketSizes) &&
-                    bucketFills.equals(casted.bucketFills);
+            return desiredFill == casted.desiredFill && Arrays.equals(bucketSizes, casted.bucketSizes) &&
+                    Arrays.equals(bucketFills, casted.bucketFills);
         return false;
     }
 
@@ -146,6 +274,6 @@ public class WaterConfig implements Configuration {
      */
     @Override
     public int hashCode(){
-        return desiredFill + bucketSizes.hashCode() + bucketFills.hashCode();
+        return desiredFill + Arrays.hashCode(bucketSizes) + Arrays.hashCode(bucketFills);
     }
 }